@@ -0,0 +1,148 @@
+package com.tandoornightcafe.app.adapter;
+
+import android.app.Instrumentation;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tandoornightcafe.app.model.Cart;
+import com.tandoornightcafe.app.model.CartItem;
+import com.tandoornightcafe.app.model.MenuItem;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lays the cart list out in a detached RecyclerView and counts binds, checking that a
+ * quantity change rebinds only its own row, with the quantity payload, and that taps made
+ * before the list catches up are all applied.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CartAdapterRebindTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    private final MenuItem naan = new MenuItem(1, "Butter Naan", "", 1, 6000);
+    private final MenuItem dal = new MenuItem(2, "Dal Makhani", "", 1, 24000);
+    private final MenuItem lassi = new MenuItem(3, "Sweet Lassi", "", 2, 9000);
+
+    private Cart cart;
+    private CountingAdapter adapter;
+    private RecyclerView recyclerView;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        cart = new Cart(500);
+        cart.add(naan);
+        cart.add(dal);
+        cart.add(lassi);
+        instrumentation.runOnMainSync(() -> {
+            adapter = new CountingAdapter(new CartAdapter.OnCartItemChangeListener() {
+                @Override
+                public void onQuantityChanged(long menuItemId, int delta) {
+                    cart.changeQuantity(menuItemId, delta);
+                }
+
+                @Override
+                public void onRemoveItem(long menuItemId) {
+                    cart.remove(menuItemId);
+                }
+            });
+            recyclerView = new RecyclerView(instrumentation.getTargetContext());
+            recyclerView.setLayoutManager(new LinearLayoutManager(instrumentation.getTargetContext()));
+            // Without change animations a changed row is rebound in place, once.
+            recyclerView.setItemAnimator(null);
+            recyclerView.setAdapter(adapter);
+        });
+        submitAndLayout();
+        assertEquals(3, adapter.boundIds.size());
+        adapter.reset();
+    }
+
+    @Test
+    public void quantityChangeRebindsOnlyThatRow() throws InterruptedException {
+        cart.changeQuantity(dal.getId(), 1);
+        submitAndLayout();
+
+        assertEquals(Collections.singletonList(dal.getId()), adapter.boundIds);
+        assertEquals(0, adapter.fullBinds);
+    }
+
+    @Test
+    public void quickTapsBeforeRebindAllCount() throws InterruptedException {
+        instrumentation.runOnMainSync(() -> {
+            CartAdapter.ViewHolder holder =
+                    (CartAdapter.ViewHolder) recyclerView.findViewHolderForItemId(dal.getId());
+            holder.increaseButton.performClick();
+            holder.increaseButton.performClick();
+        });
+        assertEquals(3, quantityOf(dal));
+
+        submitAndLayout();
+        assertEquals(Collections.singletonList(dal.getId()), adapter.boundIds);
+        instrumentation.runOnMainSync(() -> {
+            CartAdapter.ViewHolder holder =
+                    (CartAdapter.ViewHolder) recyclerView.findViewHolderForItemId(dal.getId());
+            assertEquals("3", holder.quantityText.getText().toString());
+        });
+    }
+
+    private void submitAndLayout() throws InterruptedException {
+        CountDownLatch committed = new CountDownLatch(1);
+        List<CartItem> items = cart.getItems();
+        instrumentation.runOnMainSync(() -> adapter.submitList(items, committed::countDown));
+        assertTrue("list not committed", committed.await(5, TimeUnit.SECONDS));
+        instrumentation.runOnMainSync(() -> {
+            recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+            recyclerView.layout(0, 0, WIDTH, HEIGHT);
+        });
+    }
+
+    private int quantityOf(MenuItem menuItem) {
+        for (CartItem item : cart.getItems()) {
+            if (item.getMenuItem().getId() == menuItem.getId()) {
+                return item.getQuantity();
+            }
+        }
+        return 0;
+    }
+
+    private static final class CountingAdapter extends CartAdapter {
+        final List<Long> boundIds = new ArrayList<>();
+        int fullBinds;
+
+        CountingAdapter(OnCartItemChangeListener listener) {
+            super(listener);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+            boundIds.add(getItemId(position));
+            if (payloads.isEmpty()) {
+                fullBinds++;
+            }
+            super.onBindViewHolder(holder, position, payloads);
+        }
+
+        void reset() {
+            boundIds.clear();
+            fullBinds = 0;
+        }
+    }
+}
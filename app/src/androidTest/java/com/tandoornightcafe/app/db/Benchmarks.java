@@ -0,0 +1,128 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Bundle;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.OrderItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Shared pieces of the instrumented benchmarks and database tests. Each measurement runs the
+ * operation a few times untimed to warm SQLite's page cache and the JIT, then takes the
+ * median of the timed runs. Results are sent as instrumentation status, so they show up in the
+ * {@code am instrument -r} output and the test console next to the test that produced them.
+ */
+final class Benchmarks {
+    interface Operation {
+        void run(int iteration);
+    }
+
+    // The code androidx.benchmark reports its results with.
+    private static final int STATUS_IN_PROGRESS = 2;
+
+    private Benchmarks() {
+    }
+
+    static long medianNanos(int warmups, int runs, Operation operation) {
+        for (int i = 0; i < warmups; i++) {
+            operation.run(i);
+        }
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            operation.run(warmups + i);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[runs / 2];
+    }
+
+    static void report(String name, long nanos) {
+        Bundle status = new Bundle();
+        status.putString(name, String.format(Locale.US, "%.1f us", nanos / 1000.0));
+        InstrumentationRegistry.getInstrumentation().sendStatus(STATUS_IN_PROGRESS, status);
+    }
+
+    /** A helper on a fresh database file of its own; hand it to {@link #delete} afterwards. */
+    static DBHelper openTemp(Context context, String name) {
+        context.deleteDatabase(name);
+        return new DBHelper(context, name);
+    }
+
+    static void delete(Context context, DBHelper helper) {
+        helper.close();
+        context.deleteDatabase(helper.getDatabaseName());
+    }
+
+    static Order newOrder(long orderDate, String customerName, String customerPhone, long total) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setCustomerPhone(customerPhone);
+        order.setSubtotal(total);
+        order.setTax(0);
+        order.setTotal(total);
+        order.setPaymentMethod("Cash");
+        order.setStatus("Completed");
+        order.setOrderDate(orderDate);
+        return order;
+    }
+
+    static List<OrderItem> newItems(int lines) {
+        List<OrderItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            items.add(new OrderItem(0, 0, i + 1, "Item " + (i + 1), 2, 15000, 30000));
+        }
+        return items;
+    }
+
+    /**
+     * The order write as it was before order lines went through a compiled statement: the
+     * same invoice number, rollup and search index work as {@link DBHelper#createOrder}, then
+     * one ContentValues and {@code db.insert} per line.
+     */
+    static long insertOrderWithContentValues(SQLiteDatabase db, SQLiteStatement searchInsert,
+                                             Order order, List<OrderItem> items) {
+        db.beginTransaction();
+        try {
+            order.setInvoiceNumber(InvoiceSequence.next(db, order.getOrderDate()));
+            ContentValues values = new ContentValues();
+            values.put("customer_name", order.getCustomerName());
+            values.put("customer_phone", order.getCustomerPhone());
+            values.put("phone_digits", OrderSearchIndex.phoneDigits(order.getCustomerPhone()));
+            values.put("subtotal", order.getSubtotal());
+            values.put("tax", order.getTax());
+            values.put("total", order.getTotal());
+            values.put("payment_method", order.getPaymentMethod());
+            values.put("status", order.getStatus());
+            values.put("order_date", order.getOrderDate());
+            values.put("invoice_number", order.getInvoiceNumber());
+            long orderId = db.insert("orders", null, values);
+            DailySalesRollup.record(db, order);
+            OrderSearchIndex.put(searchInsert, orderId, order.getCustomerName());
+            for (OrderItem item : items) {
+                ContentValues itemValues = new ContentValues();
+                itemValues.put("order_id", orderId);
+                itemValues.put("menu_item_id", item.getMenuItemId());
+                itemValues.put("item_name", item.getItemName());
+                itemValues.put("quantity", item.getQuantity());
+                itemValues.put("price", item.getPrice());
+                itemValues.put("subtotal", item.getSubtotal());
+                db.insert("order_items", null, itemValues);
+            }
+            db.setTransactionSuccessful();
+            return orderId;
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
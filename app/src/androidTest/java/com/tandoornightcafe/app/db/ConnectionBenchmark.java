@@ -0,0 +1,139 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tandoornightcafe.app.model.MenuItem;
+import com.tandoornightcafe.app.model.Order;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Before/after latency of createOrder and getAllMenuItems for the long-lived connection.
+ * "Per call" opens the database, does the work and closes it again, which is what every
+ * DBHelper method did before the helper became a process-wide singleton; "shared" does the
+ * same work on one connection kept open with WAL and the helper's pragmas. Each side has a
+ * database file of its own.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConnectionBenchmark {
+    private static final String SHARED_DB = "connection-benchmark-shared.db";
+    private static final String PER_CALL_DB = "connection-benchmark-per-call.db";
+    private static final int MENU_ITEMS = 300;
+    private static final int ORDER_LINES = 3;
+    private static final int WARMUPS = 5;
+    private static final int RUNS = 50;
+
+    private Context context;
+    private DBHelper shared;
+    private String perCallPath;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        shared = Benchmarks.openTemp(context, SHARED_DB);
+        seedMenu(shared);
+        DBHelper perCall = Benchmarks.openTemp(context, PER_CALL_DB);
+        seedMenu(perCall);
+        perCallPath = perCall.getWritableDatabase().getPath();
+        perCall.close();
+    }
+
+    @After
+    public void tearDown() {
+        Benchmarks.delete(context, shared);
+        context.deleteDatabase(PER_CALL_DB);
+    }
+
+    @Test
+    public void createOrder() {
+        long perCall = Benchmarks.medianNanos(WARMUPS, RUNS, i -> {
+            SQLiteDatabase db = SQLiteDatabase.openDatabase(perCallPath, null, SQLiteDatabase.OPEN_READWRITE);
+            try {
+                SQLiteStatement searchInsert = OrderSearchIndex.compileInsert(db);
+                Benchmarks.insertOrderWithContentValues(db, searchInsert, newOrder(i),
+                        Benchmarks.newItems(ORDER_LINES));
+                searchInsert.close();
+            } finally {
+                db.close();
+            }
+        });
+        SQLiteDatabase db = shared.getWritableDatabase();
+        SQLiteStatement searchInsert = OrderSearchIndex.compileInsert(db);
+        long sharedConnection = Benchmarks.medianNanos(WARMUPS, RUNS, i ->
+                Benchmarks.insertOrderWithContentValues(db, searchInsert, newOrder(i),
+                        Benchmarks.newItems(ORDER_LINES)));
+        searchInsert.close();
+
+        Benchmarks.report("createOrder_perCall", perCall);
+        Benchmarks.report("createOrder_shared", sharedConnection);
+        assertTrue("shared " + sharedConnection + " ns, per call " + perCall + " ns",
+                sharedConnection < perCall);
+    }
+
+    @Test
+    public void getAllMenuItems() {
+        long perCall = Benchmarks.medianNanos(WARMUPS, RUNS, i -> {
+            SQLiteDatabase db = SQLiteDatabase.openDatabase(perCallPath, null, SQLiteDatabase.OPEN_READWRITE);
+            try {
+                assertEquals(MENU_ITEMS, readMenu(db).size());
+            } finally {
+                db.close();
+            }
+        });
+        long sharedConnection = Benchmarks.medianNanos(WARMUPS, RUNS, i ->
+                assertEquals(MENU_ITEMS, shared.getAllMenuItems().size()));
+
+        Benchmarks.report("getAllMenuItems_perCall", perCall);
+        Benchmarks.report("getAllMenuItems_shared", sharedConnection);
+        assertTrue("shared " + sharedConnection + " ns, per call " + perCall + " ns",
+                sharedConnection < perCall);
+    }
+
+    // The same query and mapping as DBHelper.getAllMenuItems, on the connection given.
+    private static List<MenuItem> readMenu(SQLiteDatabase db) {
+        List<MenuItem> items = new ArrayList<>(MENU_ITEMS);
+        Cursor cursor = db.query("menu_items", null, null, null, null, null, "name ASC");
+        try {
+            MenuItemRowMapper mapper = new MenuItemRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                items.add(mapper.map(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return items;
+    }
+
+    private static void seedMenu(DBHelper helper) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < MENU_ITEMS; i++) {
+                helper.addMenuItem(new MenuItem(0, "Menu item " + i, "Benchmark dish", 1 + i % 5, 10000 + i));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static Order newOrder(int iteration) {
+        return Benchmarks.newOrder(System.currentTimeMillis(), "Customer " + iteration, "98765" + iteration,
+                ORDER_LINES * 30000);
+    }
+}
@@ -0,0 +1,144 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.OrderItem;
+import com.tandoornightcafe.app.util.AppExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Places orders from many threads at once and checks the day's invoice numbers come out
+ * unique and gap-free. Runs against a database file of its own, deleted afterwards, so the
+ * app's data is never touched.
+ */
+@RunWith(AndroidJUnit4.class)
+public class InvoiceSequenceStressTest {
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 25;
+
+    private Context context;
+    private DBHelper dbHelper;
+    private CafeRepository repository;
+    private long orderDate;
+    private String invoicePrefix;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = Benchmarks.openTemp(context, "invoice-sequence-stress-test.db");
+        repository = new CafeRepository(dbHelper, AppExecutors.getInstance());
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2024, Calendar.JANUARY, 5, 20, 0, 0);
+        orderDate = calendar.getTimeInMillis();
+        invoicePrefix = "INV" + DailySalesRollup.dayKey(orderDate);
+    }
+
+    @After
+    public void tearDown() {
+        Benchmarks.delete(context, dbHelper);
+    }
+
+    @Test
+    public void concurrentPlaceOrderCallsGetUniqueGapFreeNumbers() throws Exception {
+        ConcurrentLinkedQueue<String> numbers = new ConcurrentLinkedQueue<>();
+        CountDownLatch placed = new CountDownLatch(THREADS * ORDERS_PER_THREAD);
+        runConcurrently(() -> {
+            Order order = newOrder();
+            repository.placeOrder(order, newItems(), orderId -> {
+                if (orderId != -1) {
+                    numbers.add(order.getInvoiceNumber());
+                }
+                placed.countDown();
+            });
+        });
+        assertTrue("orders not placed in time", placed.await(60, TimeUnit.SECONDS));
+        assertUniqueAndGapFree(new ArrayList<>(numbers));
+    }
+
+    @Test
+    public void concurrentCreateOrderTransactionsGetUniqueGapFreeNumbers() throws Exception {
+        // Bypasses the single writer thread so only the transaction keeps numbers apart.
+        ConcurrentLinkedQueue<String> numbers = new ConcurrentLinkedQueue<>();
+        runConcurrently(() -> {
+            Order order = newOrder();
+            if (dbHelper.createOrder(order, newItems()) != -1) {
+                numbers.add(order.getInvoiceNumber());
+            }
+        });
+        assertUniqueAndGapFree(new ArrayList<>(numbers));
+    }
+
+    private void runConcurrently(Runnable placeOrder) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    placeOrder.run();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void assertUniqueAndGapFree(List<String> numbers) {
+        assertEquals(THREADS * ORDERS_PER_THREAD, numbers.size());
+        List<Integer> sequence = new ArrayList<>(numbers.size());
+        for (String number : numbers) {
+            assertTrue(number, number.startsWith(invoicePrefix));
+            sequence.add(Integer.parseInt(number.substring(invoicePrefix.length())));
+        }
+        Collections.sort(sequence);
+        for (int i = 0; i < sequence.size(); i++) {
+            assertEquals("numbers " + sequence, sequence.get(0) + i, (int) sequence.get(i));
+        }
+    }
+
+    private Order newOrder() {
+        Order order = new Order();
+        order.setCustomerName("Stress Test");
+        order.setCustomerPhone("");
+        order.setSubtotal(10000);
+        order.setTax(500);
+        order.setTotal(10500);
+        order.setPaymentMethod("Cash");
+        order.setStatus("Completed");
+        order.setOrderDate(orderDate);
+        return order;
+    }
+
+    private static List<OrderItem> newItems() {
+        List<OrderItem> items = new ArrayList<>(1);
+        items.add(new OrderItem(0, 0, 1, "Test Item", 1, 10000, 10000));
+        return items;
+    }
+}
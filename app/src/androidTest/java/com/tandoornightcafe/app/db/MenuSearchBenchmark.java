@@ -0,0 +1,93 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tandoornightcafe.app.model.MenuItem;
+import com.tandoornightcafe.app.util.SearchNormalizer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Types dish names one keystroke at a time into a 5,000-item menu and times each search,
+ * normalization included, against the 5 ms a keystroke can spend. The dish being typed must
+ * stay in the results at every keystroke, in Latin letters and in Devanagari.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MenuSearchBenchmark {
+    private static final int MENU_ITEMS = 5000;
+    private static final long KEYSTROKE_BUDGET_NANOS = 5_000_000L;
+    private static final int WARMUPS = 3;
+    private static final int RUNS = 21;
+    private static final String[] WORDS = {
+            "Aloo", "Gobi", "Matar", "Jeera", "Rajma", "Chana", "Kadai", "Korma", "Saag", "Keema",
+            "Tandoori", "Masala", "Lassi", "Kulfi", "Pakora", "Samosa", "Biryani", "Pulao", "Raita", "Kofta"
+    };
+
+    private Context context;
+    private DBHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = Benchmarks.openTemp(context, "menu-search-benchmark.db");
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < MENU_ITEMS; i++) {
+                String name = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+                helper.addMenuItem(new MenuItem(0, name, "House special", 1 + i % 5, 10000 + i));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        Benchmarks.delete(context, helper);
+    }
+
+    @Test
+    public void paneerTikka() {
+        typeAndFind("paneerTikka", "Paneer Tikka", "paneer tikka");
+    }
+
+    @Test
+    public void phirni() {
+        typeAndFind("phirni", "Phirni", "phirni");
+    }
+
+    @Test
+    public void choleBhature() {
+        typeAndFind("choleBhature", "Chole Bhature", "chole bhature");
+    }
+
+    @Test
+    public void devanagari() {
+        typeAndFind("makhniDal", "मखनी दाल", "मखनी दाल");
+    }
+
+    private void typeAndFind(String label, String dish, String typed) {
+        long id = helper.addMenuItem(new MenuItem(0, dish, "", 2, 25000));
+        long slowest = 0;
+        for (int end = 1; end <= typed.length(); end++) {
+            String prefix = typed.substring(0, end);
+            long nanos = Benchmarks.medianNanos(WARMUPS, RUNS, i ->
+                    assertTrue("\"" + prefix + "\" lost " + dish,
+                            helper.searchMenuItemIds(SearchNormalizer.toMatchQueries(prefix)).contains(id)));
+            slowest = Math.max(slowest, nanos);
+        }
+        Benchmarks.report("menuSearch_slowestKeystroke_" + label, slowest);
+        assertTrue(dish + ": slowest keystroke " + slowest + " ns", slowest < KEYSTROKE_BUDGET_NANOS);
+    }
+}
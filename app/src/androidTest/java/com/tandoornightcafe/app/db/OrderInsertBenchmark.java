@@ -0,0 +1,84 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.OrderItem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * createOrder with its cached order-line statement against the ContentValues and
+ * {@code db.insert} path it replaced, for 1, 10 and 100-line orders. Both run on the same
+ * temporary database and connection, so only the line inserts differ.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OrderInsertBenchmark {
+    private static final int WARMUPS = 5;
+    private static final int RUNS = 40;
+
+    private Context context;
+    private DBHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = Benchmarks.openTemp(context, "order-insert-benchmark.db");
+    }
+
+    @After
+    public void tearDown() {
+        Benchmarks.delete(context, helper);
+    }
+
+    @Test
+    public void oneLine() {
+        compare(1);
+    }
+
+    @Test
+    public void tenLines() {
+        compare(10);
+    }
+
+    @Test
+    public void hundredLines() {
+        compare(100);
+    }
+
+    private void compare(int lines) {
+        List<OrderItem> items = Benchmarks.newItems(lines);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        SQLiteStatement searchInsert = OrderSearchIndex.compileInsert(db);
+        long contentValues = Benchmarks.medianNanos(WARMUPS, RUNS, i ->
+                assertTrue(Benchmarks.insertOrderWithContentValues(db, searchInsert, newOrder(i, lines), items) > 0));
+        searchInsert.close();
+        long compiled = Benchmarks.medianNanos(WARMUPS, RUNS, i ->
+                assertTrue(helper.createOrder(newOrder(i, lines), items) > 0));
+
+        Benchmarks.report("createOrder_" + lines + "_contentValues", contentValues);
+        Benchmarks.report("createOrder_" + lines + "_compiled", compiled);
+        if (lines > 1) {
+            // A single line is within noise of the old path; the saving grows with the line count.
+            assertTrue("compiled " + compiled + " ns, ContentValues " + contentValues + " ns",
+                    compiled < contentValues);
+        }
+    }
+
+    private static Order newOrder(int iteration, int lines) {
+        return Benchmarks.newOrder(System.currentTimeMillis(), "Party " + iteration, "98765" + iteration,
+                lines * 30000L);
+    }
+}
@@ -0,0 +1,181 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.SalesSummary;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Loads 100k orders the ways the app can: every column mapped with a name lookup per cell,
+ * as cursorToOrder did, against {@link OrderRowMapper} on the full row and on
+ * {@link OrderRowMapper#LIST_COLUMNS}; the history screen's keyset pages; and a year's sales
+ * summary from daily_sales against the same aggregate over the orders themselves. The orders
+ * are seeded once into a temporary database, five minutes apart.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OrderLoadBenchmark {
+    private static final int ORDERS = 100_000;
+    private static final long SPACING_MILLIS = 5 * 60 * 1000L;
+    private static final long FIRST_ORDER = 1704067200000L; // 2024-01-01 00:00 UTC
+    private static final long LAST_ORDER = FIRST_ORDER + (ORDERS - 1) * SPACING_MILLIS;
+    private static final int PAGE_SIZE = 50;
+    private static final int WARMUPS = 1;
+    private static final int RUNS = 5;
+
+    private static Context context;
+    private static DBHelper helper;
+
+    @BeforeClass
+    public static void seed() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = Benchmarks.openTemp(context, "order-load-benchmark.db");
+        SQLiteDatabase db = helper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO orders (customer_name, customer_phone, " +
+                "subtotal, tax, total, payment_method, status, order_date, invoice_number, phone_digits) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ORDERS; i++) {
+                long subtotal = 10000 + (i % 400) * 100;
+                insert.bindString(1, "Customer " + (i % 5000));
+                String phone = String.format(Locale.US, "98%08d", i % 20000);
+                insert.bindString(2, phone);
+                insert.bindLong(3, subtotal);
+                insert.bindLong(4, subtotal / 20);
+                insert.bindLong(5, subtotal + subtotal / 20);
+                insert.bindString(6, i % 3 == 0 ? "UPI" : "Cash");
+                insert.bindString(7, "Completed");
+                insert.bindLong(8, FIRST_ORDER + i * SPACING_MILLIS);
+                insert.bindString(9, String.format(Locale.US, "BENCH%08d", i));
+                insert.bindString(10, phone);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+        helper.rebuildDailySales();
+    }
+
+    @AfterClass
+    public static void deleteDatabase() {
+        Benchmarks.delete(context, helper);
+    }
+
+    @Test
+    public void loadAllOrders() {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        long perCell = Benchmarks.medianNanos(WARMUPS, RUNS, i ->
+                assertEquals(ORDERS, loadByColumnName(db).size()));
+        long mapper = Benchmarks.medianNanos(WARMUPS, RUNS, i ->
+                assertEquals(ORDERS, loadWithMapper(db, null).size()));
+        long listColumns = Benchmarks.medianNanos(WARMUPS, RUNS, i ->
+                assertEquals(ORDERS, loadWithMapper(db, OrderRowMapper.LIST_COLUMNS).size()));
+
+        Benchmarks.report("loadOrders_perCellLookup", perCell);
+        Benchmarks.report("loadOrders_mapper", mapper);
+        Benchmarks.report("loadOrders_mapperListColumns", listColumns);
+        assertTrue("mapper " + mapper + " ns, per cell " + perCell + " ns", mapper < perCell);
+        assertTrue("list columns " + listColumns + " ns, full row " + mapper + " ns", listColumns < mapper);
+    }
+
+    @Test
+    public void pageThroughHistory() {
+        long nanos = Benchmarks.medianNanos(WARMUPS, RUNS, i -> {
+            int loaded = 0;
+            Order last = null;
+            List<Order> page;
+            while (!(page = helper.getOrdersPage(last, PAGE_SIZE)).isEmpty()) {
+                loaded += page.size();
+                last = page.get(page.size() - 1);
+            }
+            assertEquals(ORDERS, loaded);
+        });
+        long firstPage = Benchmarks.medianNanos(5, 50, i ->
+                assertEquals(PAGE_SIZE, helper.getOrdersPage(null, PAGE_SIZE).size()));
+
+        Benchmarks.report("ordersPage_all", nanos);
+        Benchmarks.report("ordersPage_first", firstPage);
+    }
+
+    @Test
+    public void yearSalesSummary() {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        long rollup = Benchmarks.medianNanos(5, 50, i ->
+                assertEquals(ORDERS, helper.getSalesSummary(FIRST_ORDER, LAST_ORDER).getOrderCount()));
+        long scan = Benchmarks.medianNanos(5, 50, i -> {
+            Cursor cursor = db.rawQuery("SELECT COUNT(*), SUM(total), MIN(total), MAX(total) FROM orders " +
+                    "WHERE order_date BETWEEN ? AND ?", new String[]{String.valueOf(FIRST_ORDER),
+                    String.valueOf(LAST_ORDER)});
+            try {
+                cursor.moveToFirst();
+                assertEquals(ORDERS, new SalesSummary(cursor.getInt(0), cursor.getLong(1),
+                        cursor.getLong(2), cursor.getLong(3)).getOrderCount());
+            } finally {
+                cursor.close();
+            }
+        });
+
+        Benchmarks.report("salesSummary_dailySales", rollup);
+        Benchmarks.report("salesSummary_orderScan", scan);
+        assertTrue("rollup " + rollup + " ns, scan " + scan + " ns", rollup < scan);
+    }
+
+    // The pre-mapper cursorToOrder: a getColumnIndexOrThrow for every cell of every row.
+    private static List<Order> loadByColumnName(SQLiteDatabase db) {
+        List<Order> orders = new ArrayList<>(ORDERS);
+        Cursor cursor = db.query("orders", null, null, null, null, null, "order_date DESC");
+        try {
+            while (cursor.moveToNext()) {
+                Order order = new Order();
+                order.setId(cursor.getLong(cursor.getColumnIndexOrThrow("id")));
+                order.setCustomerName(cursor.getString(cursor.getColumnIndexOrThrow("customer_name")));
+                order.setCustomerPhone(cursor.getString(cursor.getColumnIndexOrThrow("customer_phone")));
+                order.setSubtotal(cursor.getLong(cursor.getColumnIndexOrThrow("subtotal")));
+                order.setTax(cursor.getLong(cursor.getColumnIndexOrThrow("tax")));
+                order.setTotal(cursor.getLong(cursor.getColumnIndexOrThrow("total")));
+                order.setPaymentMethod(cursor.getString(cursor.getColumnIndexOrThrow("payment_method")));
+                order.setStatus(cursor.getString(cursor.getColumnIndexOrThrow("status")));
+                order.setInvoiceNumber(cursor.getString(cursor.getColumnIndexOrThrow("invoice_number")));
+                order.setOrderDate(cursor.getLong(cursor.getColumnIndexOrThrow("order_date")));
+                orders.add(order);
+            }
+        } finally {
+            cursor.close();
+        }
+        return orders;
+    }
+
+    private static List<Order> loadWithMapper(SQLiteDatabase db, String[] columns) {
+        List<Order> orders = new ArrayList<>(ORDERS);
+        Cursor cursor = db.query("orders", columns, null, null, null, null, "order_date DESC");
+        try {
+            OrderRowMapper mapper = new OrderRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                orders.add(mapper.map(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,124 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tandoornightcafe.app.model.Order;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Phone prefix search over a million orders. Phones are stored the ways cashiers type them
+ * ("9876543210", "+91 98765 43210", "98765-43210") and queries are typed with other
+ * punctuation; only the digits decide what matches. Pages are timed against a 20 ms budget.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PhoneSearchBenchmark {
+    private static final int ORDERS = 1_000_000;
+    private static final int CUSTOMERS = 50_000;
+    private static final int PAGE_SIZE = 50;
+    private static final long PAGE_BUDGET_NANOS = 20_000_000L;
+    private static final int WARMUPS = 5;
+    private static final int RUNS = 51;
+
+    private static Context context;
+    private static DBHelper helper;
+
+    @BeforeClass
+    public static void seed() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = Benchmarks.openTemp(context, "phone-search-benchmark.db");
+        SQLiteDatabase db = helper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO orders (customer_name, customer_phone, " +
+                "phone_digits, subtotal, tax, total, payment_method, status, order_date, invoice_number) " +
+                "VALUES (?, ?, ?, 10000, 500, 10500, 'Cash', 'Completed', ?, ?)");
+        long firstOrder = System.currentTimeMillis() - ORDERS * 60_000L;
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ORDERS; i++) {
+                String phone = phone(i % CUSTOMERS);
+                insert.bindString(1, "Customer " + i % CUSTOMERS);
+                insert.bindString(2, phone);
+                insert.bindString(3, OrderSearchIndex.phoneDigits(phone));
+                insert.bindLong(4, firstOrder + i * 60_000L);
+                insert.bindString(5, String.format(Locale.US, "BENCH%08d", i));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    @AfterClass
+    public static void deleteDatabase() {
+        Benchmarks.delete(context, helper);
+    }
+
+    @Test
+    public void firstPageForAnyPunctuation() {
+        String[] queries = {"98765", "+91 98765", "98765-4", "98 76 54"};
+        for (String query : queries) {
+            String digits = OrderSearchIndex.phoneDigits(query);
+            long nanos = Benchmarks.medianNanos(WARMUPS, RUNS, i -> {
+                List<Order> page = helper.searchOrders(query, null, PAGE_SIZE);
+                assertEquals(query, PAGE_SIZE, page.size());
+                for (Order order : page) {
+                    assertTrue(query + " found " + order.getCustomerPhone(),
+                            OrderSearchIndex.phoneDigits(order.getCustomerPhone()).startsWith(digits));
+                }
+            });
+            Benchmarks.report("phoneSearch_firstPage_" + digits, nanos);
+            assertTrue(query + ": " + nanos + " ns", nanos < PAGE_BUDGET_NANOS);
+        }
+    }
+
+    @Test
+    public void pagesThroughOneCustomer() {
+        // Customer 8 placed every 50,000th order and is stored as "98765-00008".
+        String query = "98765 00008";
+        long slowest = 0;
+        int found = 0;
+        Order last = null;
+        while (true) {
+            long start = System.nanoTime();
+            List<Order> page = helper.searchOrders(query, last, PAGE_SIZE);
+            slowest = Math.max(slowest, System.nanoTime() - start);
+            if (page.isEmpty()) {
+                break;
+            }
+            found += page.size();
+            last = page.get(page.size() - 1);
+        }
+        Benchmarks.report("phoneSearch_slowestPage", slowest);
+        assertEquals(ORDERS / CUSTOMERS, found);
+        assertTrue("slowest page " + slowest + " ns", slowest < PAGE_BUDGET_NANOS);
+    }
+
+    // Ten digits starting 98765, written three ways in turn.
+    private static String phone(int customer) {
+        String number = String.format(Locale.US, "98765%05d", customer);
+        switch (customer % 3) {
+            case 0:
+                return number;
+            case 1:
+                return "+91 " + number.substring(0, 5) + " " + number.substring(5);
+            default:
+                return number.substring(0, 5) + "-" + number.substring(5);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the hot queries are answered through an index. The schema is built by
+ * {@link DBHelper#onCreate} in a throwaway in-memory database, so every migration step is
+ * exercised and the app's own data is never touched.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = SQLiteDatabase.create(null);
+        DBHelper.getInstance(InstrumentationRegistry.getInstrumentation().getTargetContext()).onCreate(db);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void ordersByDateRangeUseOrderDateIndex() {
+        assertUsesIndex("SELECT * FROM orders WHERE order_date BETWEEN ? AND ? ORDER BY order_date DESC",
+                new String[]{"0", "1"}, "orders", "idx_orders_order_date");
+    }
+
+    @Test
+    public void orderHistoryPagesUseOrderDateIndex() {
+        assertUsesIndex("SELECT id FROM orders ORDER BY order_date DESC, id DESC LIMIT 50",
+                null, "orders", "idx_orders_order_date");
+        assertUsesIndex("SELECT id FROM orders WHERE order_date <= ? AND (order_date < ? OR id < ?) " +
+                        "ORDER BY order_date DESC, id DESC LIMIT 50",
+                new String[]{"1", "1", "1"}, "orders", "idx_orders_order_date");
+    }
+
+    @Test
+    public void orderItemsByOrderUseOrderIdIndex() {
+        assertUsesIndex("SELECT * FROM order_items WHERE order_id = ?",
+                new String[]{"1"}, "order_items", "idx_order_items_sales");
+    }
+
+    @Test
+    public void phoneSearchPagesUsePhoneDigitsIndex() {
+        assertUsesIndex("SELECT id FROM orders WHERE phone_digits >= ? AND phone_digits < ? " +
+                        "ORDER BY phone_digits, id DESC LIMIT 50",
+                new String[]{"98765", "98766"}, "orders", "idx_orders_phone_digits");
+        assertUsesIndex("SELECT id FROM orders WHERE phone_digits >= ? AND phone_digits < ? " +
+                        "AND (phone_digits > ? OR id < ?) ORDER BY phone_digits, id DESC LIMIT 50",
+                new String[]{"9876543210", "98766", "9876543210", "1"}, "orders", "idx_orders_phone_digits");
+    }
+
+    @Test
+    public void menuByCategoryUsesCategoryIndex() {
+        assertUsesIndex("SELECT * FROM menu_items WHERE category_id = ? ORDER BY name ASC",
+                new String[]{"1"}, "menu_items", "idx_menu_items_category_id");
+    }
+
+    @Test
+    public void itemSalesReportReadsOnlyIndexes() {
+        List<String> plan = explain("SELECT oi.menu_item_id, oi.item_name, SUM(oi.quantity), " +
+                        "SUM(oi.subtotal), MAX(oi.order_id) FROM orders o " +
+                        "JOIN order_items oi ON oi.order_id = o.id " +
+                        "WHERE o.order_date BETWEEN ? AND ? GROUP BY oi.menu_item_id",
+                new String[]{"0", "1"});
+        assertTrue(plan.toString(), contains(plan, "COVERING INDEX idx_orders_order_date"));
+        assertTrue(plan.toString(), contains(plan, "COVERING INDEX idx_order_items_sales"));
+    }
+
+    private void assertUsesIndex(String sql, String[] args, String table, String index) {
+        List<String> plan = explain(sql, args);
+        assertTrue("expected " + index + " in " + plan, contains(plan, "INDEX " + index));
+        for (String step : plan) {
+            // Older SQLite says "SCAN TABLE t", newer says "SCAN t"; both without an index
+            // mean every row is read.
+            boolean scan = step.startsWith("SCAN TABLE " + table) || step.startsWith("SCAN " + table);
+            assertFalse("full scan of " + table + " in " + plan, scan && !step.contains("INDEX"));
+        }
+    }
+
+    private List<String> explain(String sql, String[] args) {
+        List<String> plan = new ArrayList<>();
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        try {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan;
+    }
+
+    private static boolean contains(List<String> plan, String fragment) {
+        for (String step : plan) {
+            if (step.contains(fragment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package com.tandoornightcafe.app;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.StrictMode;
+
+import com.tandoornightcafe.app.db.CafeRepository;
+import com.tandoornightcafe.app.db.DocumentStore;
+import com.tandoornightcafe.app.db.SettingsStore;
+import com.tandoornightcafe.app.model.AppSettings;
+import com.tandoornightcafe.app.util.AppExecutors;
+
+public class TandoorApp extends Application {
+    private SettingsStore settingsStore;
+
+    public static SettingsStore settingsStore(Context context) {
+        return ((TandoorApp) context.getApplicationContext()).settingsStore;
+    }
+
+    public static AppSettings settings(Context context) {
+        return settingsStore(context).get();
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.DEBUG) {
+            // Any database or file access left on the main thread crashes debug builds.
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .penaltyDeath()
+                    .build());
+        }
+
+        // The splash screen stays up until this first read, which opens and migrates the
+        // database, has finished on the writer thread.
+        settingsStore = new SettingsStore(this);
+        settingsStore.load();
+        CafeRepository.getInstance(this).preloadMenu();
+
+        // Opening the store resolves the external files directory, which is disk access too.
+        AppExecutors executors = AppExecutors.getInstance();
+        settingsStore.whenLoaded(() -> {
+            long quotaBytes = settingsStore.get().getDocumentQuotaBytes();
+            executors.fileIO().execute(() -> {
+                DocumentStore documents = DocumentStore.getInstance(this);
+                documents.setQuotaBytes(quotaBytes);
+                documents.maintain();
+            });
+        });
+        settingsStore.addListener(updated -> executors.fileIO().execute(() ->
+                DocumentStore.getInstance(this).setQuotaBytes(updated.getDocumentQuotaBytes())));
+    }
+}
@@ -7,26 +7,55 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.tandoornightcafe.app.R;
 import com.tandoornightcafe.app.model.CartItem;
+import com.tandoornightcafe.app.util.Money;
 
 import java.util.List;
-import java.util.Locale;
 
-public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
-    private List<CartItem> items;
-    private OnCartItemChangeListener listener;
+public class CartAdapter extends ListAdapter<CartItem, CartAdapter.ViewHolder> {
+    // Payload for a line whose only change is its quantity: rebind the counts, not the row.
+    private static final Object PAYLOAD_QUANTITY = new Object();
 
+    private static final DiffUtil.ItemCallback<CartItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<CartItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CartItem oldItem, @NonNull CartItem newItem) {
+            return oldItem.getMenuItem().getId() == newItem.getMenuItem().getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull CartItem oldItem, @NonNull CartItem newItem) {
+            return oldItem.getQuantity() == newItem.getQuantity()
+                    && oldItem.getMenuItem() == newItem.getMenuItem();
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull CartItem oldItem, @NonNull CartItem newItem) {
+            return oldItem.getMenuItem() == newItem.getMenuItem() ? PAYLOAD_QUANTITY : null;
+        }
+    };
+
+    private final OnCartItemChangeListener listener;
+
+    /** Lines are identified by menu item id, so a tap never acts on a row's stale copy. */
     public interface OnCartItemChangeListener {
-        void onQuantityChanged();
-        void onRemoveItem(CartItem item);
+        void onQuantityChanged(long menuItemId, int delta);
+        void onRemoveItem(long menuItemId);
     }
 
-    public CartAdapter(List<CartItem> items, OnCartItemChangeListener listener) {
-        this.items = items;
+    public CartAdapter(OnCartItemChangeListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getMenuItem().getId();
     }
 
     @NonNull
@@ -34,23 +63,21 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_cart, parent, false);
-        return new ViewHolder(view);
+        return new ViewHolder(view, listener);
     }
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        CartItem item = items.get(position);
-        holder.bind(item, listener);
+        holder.bind(getItem(position));
     }
 
     @Override
-    public int getItemCount() {
-        return items.size();
-    }
-
-    public void updateItems(List<CartItem> newItems) {
-        this.items = newItems;
-        notifyDataSetChanged();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.bindQuantity(getItem(position));
+        }
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -62,7 +89,7 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
         ImageButton increaseButton;
         ImageButton removeButton;
 
-        ViewHolder(View itemView) {
+        ViewHolder(View itemView, OnCartItemChangeListener listener) {
             super(itemView);
             nameText = itemView.findViewById(R.id.text_name);
             priceText = itemView.findViewById(R.id.text_price);
@@ -71,31 +98,34 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
             decreaseButton = itemView.findViewById(R.id.button_decrease);
             increaseButton = itemView.findViewById(R.id.button_increase);
             removeButton = itemView.findViewById(R.id.button_remove);
-        }
-
-        void bind(CartItem item, OnCartItemChangeListener listener) {
-            nameText.setText(item.getMenuItem().getName());
-            priceText.setText(String.format(Locale.getDefault(), "₹%.2f", item.getMenuItem().getPrice()));
-            quantityText.setText(String.valueOf(item.getQuantity()));
-            subtotalText.setText(String.format(Locale.getDefault(), "₹%.2f", item.getSubtotal()));
 
+            // The holder's stable id is the menu item id of whatever line it shows now.
             decreaseButton.setOnClickListener(v -> {
-                if (item.getQuantity() > 1) {
-                    item.setQuantity(item.getQuantity() - 1);
-                    quantityText.setText(String.valueOf(item.getQuantity()));
-                    subtotalText.setText(String.format(Locale.getDefault(), "₹%.2f", item.getSubtotal()));
-                    listener.onQuantityChanged();
+                if (getItemId() != RecyclerView.NO_ID) {
+                    listener.onQuantityChanged(getItemId(), -1);
                 }
             });
-
             increaseButton.setOnClickListener(v -> {
-                item.setQuantity(item.getQuantity() + 1);
-                quantityText.setText(String.valueOf(item.getQuantity()));
-                subtotalText.setText(String.format(Locale.getDefault(), "₹%.2f", item.getSubtotal()));
-                listener.onQuantityChanged();
+                if (getItemId() != RecyclerView.NO_ID) {
+                    listener.onQuantityChanged(getItemId(), 1);
+                }
             });
+            removeButton.setOnClickListener(v -> {
+                if (getItemId() != RecyclerView.NO_ID) {
+                    listener.onRemoveItem(getItemId());
+                }
+            });
+        }
+
+        void bind(CartItem item) {
+            nameText.setText(item.getMenuItem().getName());
+            priceText.setText(Money.format(item.getMenuItem().getPrice()));
+            bindQuantity(item);
+        }
 
-            removeButton.setOnClickListener(v -> listener.onRemoveItem(item));
+        void bindQuantity(CartItem item) {
+            quantityText.setText(String.valueOf(item.getQuantity()));
+            subtotalText.setText(Money.format(item.getSubtotal()));
         }
     }
 }
@@ -1,5 +1,6 @@
 package com.tandoornightcafe.app.adapter;
 
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,26 +8,55 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.tandoornightcafe.app.R;
 import com.tandoornightcafe.app.model.MenuItem;
+import com.tandoornightcafe.app.util.Money;
 
-import java.util.List;
-import java.util.Locale;
+import java.util.Collections;
+import java.util.Map;
 
-public class MenuAdapter extends RecyclerView.Adapter<MenuAdapter.ViewHolder> {
-    private List<MenuItem> items;
-    private OnMenuItemClickListener listener;
+public class MenuAdapter extends ListAdapter<MenuItem, MenuAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<MenuItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<MenuItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull MenuItem oldItem, @NonNull MenuItem newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull MenuItem oldItem, @NonNull MenuItem newItem) {
+            return TextUtils.equals(oldItem.getName(), newItem.getName())
+                    && TextUtils.equals(oldItem.getDescription(), newItem.getDescription())
+                    && oldItem.getCategoryId() == newItem.getCategoryId()
+                    && oldItem.getPrice() == newItem.getPrice();
+        }
+    };
+
+    private final OnMenuItemClickListener listener;
+    private Map<Long, String> categoryLabels = Collections.emptyMap();
 
     public interface OnMenuItemClickListener {
         void onEditClick(MenuItem item);
         void onDeleteClick(MenuItem item);
     }
 
-    public MenuAdapter(List<MenuItem> items, OnMenuItemClickListener listener) {
-        this.items = items;
+    public MenuAdapter(OnMenuItemClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    /** Localized names by category id; set before submitting items. */
+    public void setCategoryLabels(Map<Long, String> categoryLabels) {
+        this.categoryLabels = categoryLabels;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     @NonNull
@@ -39,18 +69,7 @@ public class MenuAdapter extends RecyclerView.Adapter<MenuAdapter.ViewHolder> {
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        MenuItem item = items.get(position);
-        holder.bind(item, listener);
-    }
-
-    @Override
-    public int getItemCount() {
-        return items.size();
-    }
-
-    public void updateItems(List<MenuItem> newItems) {
-        this.items = newItems;
-        notifyDataSetChanged();
+        holder.bind(getItem(position), categoryLabels, listener);
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -71,11 +90,11 @@ public class MenuAdapter extends RecyclerView.Adapter<MenuAdapter.ViewHolder> {
             deleteButton = itemView.findViewById(R.id.button_delete);
         }
 
-        void bind(MenuItem item, OnMenuItemClickListener listener) {
+        void bind(MenuItem item, Map<Long, String> categoryLabels, OnMenuItemClickListener listener) {
             nameText.setText(item.getName());
             descriptionText.setText(item.getDescription());
-            categoryText.setText(item.getCategory());
-            priceText.setText(String.format(Locale.getDefault(), "₹%.2f", item.getPrice()));
+            categoryText.setText(categoryLabels.get(item.getCategoryId()));
+            priceText.setText(Money.format(item.getPrice()));
 
             editButton.setOnClickListener(v -> listener.onEditClick(item));
             deleteButton.setOnClickListener(v -> listener.onDeleteClick(item));
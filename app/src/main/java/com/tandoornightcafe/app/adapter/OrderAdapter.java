@@ -1,32 +1,58 @@
 package com.tandoornightcafe.app.adapter;
 
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.tandoornightcafe.app.R;
 import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.util.Money;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
-public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.ViewHolder> {
-    private List<Order> orders;
-    private OnOrderClickListener listener;
+public class OrderAdapter extends ListAdapter<Order, OrderAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<Order> DIFF_CALLBACK = new DiffUtil.ItemCallback<Order>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+            return TextUtils.equals(oldItem.getInvoiceNumber(), newItem.getInvoiceNumber())
+                    && oldItem.getOrderDate() == newItem.getOrderDate()
+                    && TextUtils.equals(oldItem.getCustomerName(), newItem.getCustomerName())
+                    && oldItem.getTotal() == newItem.getTotal()
+                    && TextUtils.equals(oldItem.getStatus(), newItem.getStatus());
+        }
+    };
+
+    private final OnOrderClickListener listener;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
 
     public interface OnOrderClickListener {
         void onOrderClick(Order order);
     }
 
-    public OrderAdapter(List<Order> orders, OnOrderClickListener listener) {
-        this.orders = orders;
+    public OrderAdapter(OnOrderClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     @NonNull
@@ -39,18 +65,21 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.ViewHolder>
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Order order = orders.get(position);
-        holder.bind(order, listener, dateFormat);
+        holder.bind(getItem(position), listener, dateFormat);
     }
 
-    @Override
-    public int getItemCount() {
-        return orders.size();
+    /** Appends a page; {@code onCommitted} runs once the rows are in the list. */
+    public void appendOrders(List<Order> page, Runnable onCommitted) {
+        List<Order> current = getCurrentList();
+        List<Order> orders = new ArrayList<>(current.size() + page.size());
+        orders.addAll(current);
+        orders.addAll(page);
+        submitList(orders, onCommitted);
     }
 
-    public void updateOrders(List<Order> newOrders) {
-        this.orders = newOrders;
-        notifyDataSetChanged();
+    public Order getLastOrder() {
+        List<Order> orders = getCurrentList();
+        return orders.isEmpty() ? null : orders.get(orders.size() - 1);
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -73,7 +102,7 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.ViewHolder>
             invoiceText.setText(order.getInvoiceNumber());
             dateText.setText(dateFormat.format(order.getOrderDate()));
             customerText.setText(order.getCustomerName());
-            totalText.setText(String.format(Locale.getDefault(), "₹%.2f", order.getTotal()));
+            totalText.setText(Money.format(order.getTotal()));
             statusText.setText(order.getStatus());
 
             itemView.setOnClickListener(v -> listener.onOrderClick(order));
@@ -1,5 +1,6 @@
 package com.tandoornightcafe.app.adapter;
 
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,25 +8,44 @@ import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.tandoornightcafe.app.R;
 import com.tandoornightcafe.app.model.MenuItem;
+import com.tandoornightcafe.app.util.Money;
 
-import java.util.List;
-import java.util.Locale;
+public class SelectMenuAdapter extends ListAdapter<MenuItem, SelectMenuAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<MenuItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<MenuItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull MenuItem oldItem, @NonNull MenuItem newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull MenuItem oldItem, @NonNull MenuItem newItem) {
+            return TextUtils.equals(oldItem.getName(), newItem.getName())
+                    && TextUtils.equals(oldItem.getDescription(), newItem.getDescription())
+                    && oldItem.getPrice() == newItem.getPrice();
+        }
+    };
 
-public class SelectMenuAdapter extends RecyclerView.Adapter<SelectMenuAdapter.ViewHolder> {
-    private List<MenuItem> items;
-    private OnMenuItemSelectListener listener;
+    private final OnMenuItemSelectListener listener;
 
     public interface OnMenuItemSelectListener {
         void onItemSelected(MenuItem item);
     }
 
-    public SelectMenuAdapter(List<MenuItem> items, OnMenuItemSelectListener listener) {
-        this.items = items;
+    public SelectMenuAdapter(OnMenuItemSelectListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     @NonNull
@@ -38,18 +58,7 @@ public class SelectMenuAdapter extends RecyclerView.Adapter<SelectMenuAdapter.Vi
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        MenuItem item = items.get(position);
-        holder.bind(item, listener);
-    }
-
-    @Override
-    public int getItemCount() {
-        return items.size();
-    }
-
-    public void updateItems(List<MenuItem> newItems) {
-        this.items = newItems;
-        notifyDataSetChanged();
+        holder.bind(getItem(position), listener);
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -69,7 +78,7 @@ public class SelectMenuAdapter extends RecyclerView.Adapter<SelectMenuAdapter.Vi
         void bind(MenuItem item, OnMenuItemSelectListener listener) {
             nameText.setText(item.getName());
             descriptionText.setText(item.getDescription());
-            priceText.setText(String.format(Locale.getDefault(), "₹%.2f", item.getPrice()));
+            priceText.setText(Money.format(item.getPrice()));
             addButton.setOnClickListener(v -> listener.onItemSelected(item));
         }
     }
@@ -0,0 +1,218 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.WorkerThread;
+
+import com.tandoornightcafe.app.model.Category;
+import com.tandoornightcafe.app.model.ItemSales;
+import com.tandoornightcafe.app.model.MenuItem;
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.OrderItem;
+import com.tandoornightcafe.app.model.SalesHeatmap;
+import com.tandoornightcafe.app.model.SalesSummary;
+import com.tandoornightcafe.app.util.AppExecutors;
+import com.tandoornightcafe.app.util.SearchNormalizer;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous front for {@link DBHelper}. Reads run on the reader pool, writes on the single
+ * writer thread, and every callback is delivered on the main thread, so activities never
+ * touch SQLite themselves. Menu items handed out come from a shared cache and must be
+ * treated as read-only.
+ */
+public class CafeRepository {
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private static volatile CafeRepository instance;
+
+    private final DBHelper dbHelper;
+    private final AppExecutors executors;
+    private final MenuCache menuCache = new MenuCache();
+
+    public static CafeRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (CafeRepository.class) {
+                if (instance == null) {
+                    instance = new CafeRepository(DBHelper.getInstance(context), AppExecutors.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    CafeRepository(DBHelper dbHelper, AppExecutors executors) {
+        this.dbHelper = dbHelper;
+        this.executors = executors;
+    }
+
+    /** Warms the menu cache so the first order screen renders without a query. */
+    public void preloadMenu() {
+        write(this::loadedMenu, null);
+    }
+
+    public void getAllMenuItems(Callback<List<MenuItem>> callback) {
+        readMenu(MenuCache::getAll, callback);
+    }
+
+    public void getMenuItemsByCategory(long categoryId, Callback<List<MenuItem>> callback) {
+        readMenu(menu -> menu.getByCategory(categoryId), callback);
+    }
+
+    /** Categories in display order, each with its current item count. */
+    public void getCategories(Callback<List<Category>> callback) {
+        read(dbHelper::getCategories, callback);
+    }
+
+    /**
+     * Menu items matching free text in English, Hinglish or Devanagari, in name order. Blank
+     * text returns the whole menu.
+     */
+    public void searchMenuItems(String text, Callback<List<MenuItem>> callback) {
+        List<String> matchQueries = SearchNormalizer.toMatchQueries(text);
+        if (matchQueries.isEmpty()) {
+            readMenu(MenuCache::getAll, callback);
+            return;
+        }
+        if (menuCache.isLoaded()) {
+            read(() -> menuCache.select(dbHelper.searchMenuItemIds(matchQueries)), callback);
+        } else {
+            write(() -> loadedMenu().select(dbHelper.searchMenuItemIds(matchQueries)), callback);
+        }
+    }
+
+    public void getMenuItem(long id, Callback<MenuItem> callback) {
+        readMenu(menu -> menu.get(id), callback);
+    }
+
+    public void addMenuItem(MenuItem item, Callback<Long> callback) {
+        write(() -> {
+            long id = dbHelper.addMenuItem(item);
+            if (id != -1) {
+                item.setId(id);
+                menuCache.put(item);
+            }
+            return id;
+        }, callback);
+    }
+
+    public void updateMenuItem(MenuItem item, Callback<Integer> callback) {
+        write(() -> {
+            int rows = dbHelper.updateMenuItem(item);
+            if (rows > 0) {
+                menuCache.put(item);
+            }
+            return rows;
+        }, callback);
+    }
+
+    public void deleteMenuItem(long id, Callback<Void> callback) {
+        write(() -> {
+            dbHelper.deleteMenuItem(id);
+            menuCache.remove(id);
+            return null;
+        }, callback);
+    }
+
+    public void placeOrder(Order order, List<OrderItem> orderItems, Callback<Long> callback) {
+        write(() -> {
+            long orderId = dbHelper.createOrder(order, orderItems);
+            order.setId(orderId);
+            return orderId;
+        }, callback);
+    }
+
+    public void getOrder(long id, Callback<Order> callback) {
+        read(() -> dbHelper.getOrder(id), callback);
+    }
+
+    public void getOrdersPage(Order after, int limit, Callback<List<Order>> callback) {
+        read(() -> dbHelper.getOrdersPage(after, limit), callback);
+    }
+
+    public void searchOrders(String query, Order after, int limit, Callback<List<Order>> callback) {
+        read(() -> dbHelper.searchOrders(query, after, limit), callback);
+    }
+
+    public void getOrderItems(long orderId, Callback<List<OrderItem>> callback) {
+        read(() -> dbHelper.getOrderItems(orderId), callback);
+    }
+
+    public void getSalesSummary(long startMillis, long endMillis, Callback<SalesSummary> callback) {
+        read(() -> dbHelper.getSalesSummary(startMillis, endMillis), callback);
+    }
+
+    public void getSalesHeatmap(long startMillis, long endMillis, Callback<SalesHeatmap> callback) {
+        read(() -> dbHelper.getSalesHeatmap(startMillis, endMillis), callback);
+    }
+
+    public void getTopItems(long startMillis, long endMillis, int limit, Callback<List<ItemSales>> callback) {
+        read(() -> dbHelper.getTopItems(startMillis, endMillis, limit), callback);
+    }
+
+    @WorkerThread
+    public Cursor queryOrdersForExport(long startMillis, long endMillis) {
+        return dbHelper.queryOrdersForExport(startMillis, endMillis);
+    }
+
+    @WorkerThread
+    public int countOrdersForExport(long startMillis, long endMillis) {
+        return dbHelper.countOrdersForExport(startMillis, endMillis);
+    }
+
+    @WorkerThread
+    public Cursor queryItemSalesForExport(long startMillis, long endMillis) {
+        return dbHelper.queryItemSalesForExport(startMillis, endMillis);
+    }
+
+    @WorkerThread
+    public int countItemSalesForExport(long startMillis, long endMillis) {
+        return dbHelper.countItemSalesForExport(startMillis, endMillis);
+    }
+
+    /**
+     * Serves menu reads from the cache. Only the first read before the cache is warm goes to
+     * SQLite, and it runs on the writer so no menu write can interleave with the load.
+     */
+    private <T> void readMenu(Function<MenuCache, T> query, Callback<T> callback) {
+        if (menuCache.isLoaded()) {
+            T result = query.apply(menuCache);
+            if (callback != null) {
+                executors.mainThread().execute(() -> callback.onResult(result));
+            }
+            return;
+        }
+        write(() -> query.apply(loadedMenu()), callback);
+    }
+
+    private MenuCache loadedMenu() {
+        if (!menuCache.isLoaded()) {
+            menuCache.load(dbHelper.getAllMenuItems());
+        }
+        return menuCache;
+    }
+
+    private <T> void read(Supplier<T> query, Callback<T> callback) {
+        run(executors.dbReaders(), query, callback);
+    }
+
+    private <T> void write(Supplier<T> update, Callback<T> callback) {
+        run(executors.dbWriter(), update, callback);
+    }
+
+    private <T> void run(Executor executor, Supplier<T> task, Callback<T> callback) {
+        executor.execute(() -> {
+            T result = task.get();
+            if (callback != null) {
+                executors.mainThread().execute(() -> callback.onResult(result));
+            }
+        });
+    }
+}
@@ -3,34 +3,89 @@ package com.tandoornightcafe.app.db;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
+import com.tandoornightcafe.app.model.Category;
+import com.tandoornightcafe.app.model.ItemSales;
 import com.tandoornightcafe.app.model.MenuItem;
 import com.tandoornightcafe.app.model.Order;
 import com.tandoornightcafe.app.model.OrderItem;
+import com.tandoornightcafe.app.model.SalesHeatmap;
+import com.tandoornightcafe.app.model.SalesSummary;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 public class DBHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "tandoor_cafe.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = Migrations.LATEST_VERSION;
 
     private static final String TABLE_MENU_ITEMS = "menu_items";
     private static final String TABLE_ORDERS = "orders";
     private static final String TABLE_ORDER_ITEMS = "order_items";
     private static final String TABLE_SETTINGS = "settings";
 
-    private static final SimpleDateFormat dateFormat = 
-        new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+    private static final int PAGE_CACHE_KIB = 4096;
 
-    public DBHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    private static volatile DBHelper instance;
+
+    // Compiled once and reused for every order line and search index row; only touched inside
+    // a write transaction, which already keeps other threads out.
+    private SQLiteStatement insertOrderItemStatement;
+    private SQLiteStatement menuSearchInsertStatement;
+    private SQLiteStatement orderSearchInsertStatement;
+
+    public static DBHelper getInstance(Context context) {
+        if (instance == null) {
+            synchronized (DBHelper.class) {
+                if (instance == null) {
+                    instance = new DBHelper(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private DBHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    /** A helper on a database file of its own, so tests and benchmarks never touch the app's data. */
+    DBHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /** Only helpers built for tests are closed; the shared one stays open for the process. */
+    @Override
+    public synchronized void close() {
+        closeStatement(insertOrderItemStatement);
+        closeStatement(menuSearchInsertStatement);
+        closeStatement(orderSearchInsertStatement);
+        insertOrderItemStatement = null;
+        menuSearchInsertStatement = null;
+        orderSearchInsertStatement = null;
+        super.close();
+    }
+
+    private static void closeStatement(SQLiteStatement statement) {
+        if (statement != null) {
+            statement.close();
+        }
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.execSQL("PRAGMA synchronous = NORMAL");
+        db.execSQL("PRAGMA cache_size = -" + PAGE_CACHE_KIB);
     }
 
     @Override
@@ -73,15 +128,13 @@ public class DBHelper extends SQLiteOpenHelper {
         db.execSQL(createSettingsTable);
 
         insertDefaultSettings(db);
+
+        Migrations.migrate(db, Migrations.BASE_VERSION, DATABASE_VERSION);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ORDER_ITEMS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ORDERS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MENU_ITEMS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SETTINGS);
-        onCreate(db);
+        Migrations.migrate(db, oldVersion, newVersion);
     }
 
     private void insertDefaultSettings(SQLiteDatabase db) {
@@ -122,11 +175,19 @@ public class DBHelper extends SQLiteOpenHelper {
         ContentValues values = new ContentValues();
         values.put("name", item.getName());
         values.put("description", item.getDescription());
-        values.put("category", item.getCategory());
+        values.put("category_id", item.getCategoryId());
         values.put("price", item.getPrice());
-        long id = db.insert(TABLE_MENU_ITEMS, null, values);
-        db.close();
-        return id;
+        db.beginTransaction();
+        try {
+            long id = db.insert(TABLE_MENU_ITEMS, null, values);
+            if (id != -1) {
+                MenuSearchIndex.put(menuSearchInsert(db), id, item.getName(), item.getDescription());
+            }
+            db.setTransactionSuccessful();
+            return id;
+        } finally {
+            db.endTransaction();
+        }
     }
 
     public int updateMenuItem(MenuItem item) {
@@ -134,18 +195,37 @@ public class DBHelper extends SQLiteOpenHelper {
         ContentValues values = new ContentValues();
         values.put("name", item.getName());
         values.put("description", item.getDescription());
-        values.put("category", item.getCategory());
+        values.put("category_id", item.getCategoryId());
         values.put("price", item.getPrice());
-        int rows = db.update(TABLE_MENU_ITEMS, values, "id = ?", 
-                new String[]{String.valueOf(item.getId())});
-        db.close();
-        return rows;
+        db.beginTransaction();
+        try {
+            int rows = db.update(TABLE_MENU_ITEMS, values, "id = ?",
+                    new String[]{String.valueOf(item.getId())});
+            if (rows > 0) {
+                MenuSearchIndex.put(menuSearchInsert(db), item.getId(), item.getName(), item.getDescription());
+            }
+            db.setTransactionSuccessful();
+            return rows;
+        } finally {
+            db.endTransaction();
+        }
     }
 
     public void deleteMenuItem(long id) {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_MENU_ITEMS, "id = ?", new String[]{String.valueOf(id)});
-        db.close();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_MENU_ITEMS, "id = ?", new String[]{String.valueOf(id)});
+            MenuSearchIndex.delete(db, id);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Ids of the menu items matching any of the {@link com.tandoornightcafe.app.util.SearchNormalizer} queries. */
+    public Set<Long> searchMenuItemIds(List<String> matchQueries) {
+        return MenuSearchIndex.search(getReadableDatabase(), matchQueries);
     }
 
     public MenuItem getMenuItem(long id) {
@@ -153,11 +233,10 @@ public class DBHelper extends SQLiteOpenHelper {
         Cursor cursor = db.query(TABLE_MENU_ITEMS, null, "id = ?", 
                 new String[]{String.valueOf(id)}, null, null, null);
         MenuItem item = null;
-        if (cursor != null && cursor.moveToFirst()) {
-            item = cursorToMenuItem(cursor);
-            cursor.close();
+        if (cursor.moveToFirst()) {
+            item = new MenuItemRowMapper(cursor).map(cursor);
         }
-        db.close();
+        cursor.close();
         return item;
     }
 
@@ -165,39 +244,29 @@ public class DBHelper extends SQLiteOpenHelper {
         List<MenuItem> items = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.query(TABLE_MENU_ITEMS, null, null, null, null, null, "name ASC");
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                items.add(cursorToMenuItem(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
+        MenuItemRowMapper mapper = new MenuItemRowMapper(cursor);
+        while (cursor.moveToNext()) {
+            items.add(mapper.map(cursor));
         }
-        db.close();
+        cursor.close();
         return items;
     }
 
-    public List<MenuItem> getMenuItemsByCategory(String category) {
+    public List<MenuItem> getMenuItemsByCategory(long categoryId) {
         List<MenuItem> items = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.query(TABLE_MENU_ITEMS, null, "category = ?", 
-                new String[]{category}, null, null, "name ASC");
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                items.add(cursorToMenuItem(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
+        Cursor cursor = db.query(TABLE_MENU_ITEMS, null, "category_id = ?",
+                new String[]{String.valueOf(categoryId)}, null, null, "name ASC");
+        MenuItemRowMapper mapper = new MenuItemRowMapper(cursor);
+        while (cursor.moveToNext()) {
+            items.add(mapper.map(cursor));
         }
-        db.close();
+        cursor.close();
         return items;
     }
 
-    private MenuItem cursorToMenuItem(Cursor cursor) {
-        MenuItem item = new MenuItem();
-        item.setId(cursor.getLong(cursor.getColumnIndexOrThrow("id")));
-        item.setName(cursor.getString(cursor.getColumnIndexOrThrow("name")));
-        item.setDescription(cursor.getString(cursor.getColumnIndexOrThrow("description")));
-        item.setCategory(cursor.getString(cursor.getColumnIndexOrThrow("category")));
-        item.setPrice(cursor.getDouble(cursor.getColumnIndexOrThrow("price")));
-        return item;
+    public List<Category> getCategories() {
+        return MenuCategories.getAll(getReadableDatabase());
     }
 
     public long createOrder(Order order, List<OrderItem> orderItems) {
@@ -205,104 +274,182 @@ public class DBHelper extends SQLiteOpenHelper {
         db.beginTransaction();
         long orderId = -1;
         try {
+            order.setInvoiceNumber(InvoiceSequence.next(db, order.getOrderDate()));
+
             ContentValues values = new ContentValues();
             values.put("customer_name", order.getCustomerName());
             values.put("customer_phone", order.getCustomerPhone());
+            values.put("phone_digits", OrderSearchIndex.phoneDigits(order.getCustomerPhone()));
             values.put("subtotal", order.getSubtotal());
             values.put("tax", order.getTax());
             values.put("total", order.getTotal());
             values.put("payment_method", order.getPaymentMethod());
             values.put("status", order.getStatus());
-            values.put("order_date", dateFormat.format(order.getOrderDate()));
+            values.put("order_date", order.getOrderDate());
             values.put("invoice_number", order.getInvoiceNumber());
             
             orderId = db.insert(TABLE_ORDERS, null, values);
 
             if (orderId != -1) {
-                for (OrderItem item : orderItems) {
-                    ContentValues itemValues = new ContentValues();
-                    itemValues.put("order_id", orderId);
-                    itemValues.put("menu_item_id", item.getMenuItemId());
-                    itemValues.put("item_name", item.getItemName());
-                    itemValues.put("quantity", item.getQuantity());
-                    itemValues.put("price", item.getPrice());
-                    itemValues.put("subtotal", item.getSubtotal());
-                    db.insert(TABLE_ORDER_ITEMS, null, itemValues);
+                DailySalesRollup.record(db, order);
+                OrderSearchIndex.put(orderSearchInsert(db), orderId, order.getCustomerName());
+                SQLiteStatement insertItem = orderItemInsert(db);
+                for (int i = 0, size = orderItems.size(); i < size; i++) {
+                    OrderItem item = orderItems.get(i);
+                    insertItem.bindLong(1, orderId);
+                    insertItem.bindLong(2, item.getMenuItemId());
+                    insertItem.bindString(3, item.getItemName());
+                    insertItem.bindLong(4, item.getQuantity());
+                    insertItem.bindLong(5, item.getPrice());
+                    insertItem.bindLong(6, item.getSubtotal());
+                    insertItem.executeInsert();
                 }
+                insertItem.clearBindings();
                 db.setTransactionSuccessful();
             }
+        } catch (SQLException e) {
+            // The compiled statements throw where db.insert returned -1. Report the failure the
+            // same way instead of letting it escape the writer thread; the transaction rolls back.
+            orderId = -1;
         } finally {
             db.endTransaction();
-            db.close();
         }
         return orderId;
     }
 
+    private SQLiteStatement orderItemInsert(SQLiteDatabase db) {
+        if (insertOrderItemStatement == null) {
+            insertOrderItemStatement = db.compileStatement("INSERT INTO " + TABLE_ORDER_ITEMS +
+                    " (order_id, menu_item_id, item_name, quantity, price, subtotal) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)");
+        }
+        return insertOrderItemStatement;
+    }
+
+    private SQLiteStatement menuSearchInsert(SQLiteDatabase db) {
+        if (menuSearchInsertStatement == null) {
+            menuSearchInsertStatement = MenuSearchIndex.compileInsert(db);
+        }
+        return menuSearchInsertStatement;
+    }
+
+    private SQLiteStatement orderSearchInsert(SQLiteDatabase db) {
+        if (orderSearchInsertStatement == null) {
+            orderSearchInsertStatement = OrderSearchIndex.compileInsert(db);
+        }
+        return orderSearchInsertStatement;
+    }
+
     public Order getOrder(long id) {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.query(TABLE_ORDERS, null, "id = ?", 
                 new String[]{String.valueOf(id)}, null, null, null);
         Order order = null;
-        if (cursor != null && cursor.moveToFirst()) {
-            order = cursorToOrder(cursor);
-            cursor.close();
+        if (cursor.moveToFirst()) {
+            order = new OrderRowMapper(cursor).map(cursor);
         }
-        db.close();
+        cursor.close();
         return order;
     }
 
-    public List<Order> getAllOrders() {
-        List<Order> orders = new ArrayList<>();
+    /**
+     * Returns one page of order history, newest first, after {@code after} (or from the top
+     * when null). Only the columns a history row shows are loaded; use {@link #getOrder}
+     * for the full row.
+     */
+    public List<Order> getOrdersPage(Order after, int limit) {
+        List<Order> orders = new ArrayList<>(limit);
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.query(TABLE_ORDERS, null, null, null, null, null, "order_date DESC");
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                orders.add(cursorToOrder(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
+        Cursor cursor;
+        if (after == null) {
+            cursor = db.query(TABLE_ORDERS, OrderRowMapper.LIST_COLUMNS, null, null, null, null,
+                    "order_date DESC, id DESC", String.valueOf(limit));
+        } else {
+            String afterDate = String.valueOf(after.getOrderDate());
+            cursor = db.query(TABLE_ORDERS, OrderRowMapper.LIST_COLUMNS,
+                    "order_date <= ? AND (order_date < ? OR id < ?)",
+                    new String[]{afterDate, afterDate, String.valueOf(after.getId())},
+                    null, null, "order_date DESC, id DESC", String.valueOf(limit));
         }
-        db.close();
+        OrderRowMapper mapper = new OrderRowMapper(cursor);
+        while (cursor.moveToNext()) {
+            orders.add(mapper.map(cursor));
+        }
+        cursor.close();
         return orders;
     }
 
-    public List<Order> getOrdersByDateRange(Date startDate, Date endDate) {
+    /**
+     * One page of orders matching an invoice number, a phone prefix or customer name words;
+     * {@code after} is the last order of the previous page, or null for the first.
+     */
+    public List<Order> searchOrders(String query, Order after, int limit) {
+        return OrderSearchIndex.search(getReadableDatabase(), query, after, limit);
+    }
+
+    public List<Order> getOrdersByDateRange(long startMillis, long endMillis) {
         List<Order> orders = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        String start = dateFormat.format(startDate);
-        String end = dateFormat.format(endDate);
         Cursor cursor = db.query(TABLE_ORDERS, null, 
                 "order_date BETWEEN ? AND ?", 
-                new String[]{start, end}, null, null, "order_date DESC");
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                orders.add(cursorToOrder(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
+                new String[]{String.valueOf(startMillis), String.valueOf(endMillis)},
+                null, null, "order_date DESC");
+        OrderRowMapper mapper = new OrderRowMapper(cursor);
+        while (cursor.moveToNext()) {
+            orders.add(mapper.map(cursor));
         }
-        db.close();
+        cursor.close();
         return orders;
     }
 
-    private Order cursorToOrder(Cursor cursor) {
-        Order order = new Order();
-        order.setId(cursor.getLong(cursor.getColumnIndexOrThrow("id")));
-        order.setCustomerName(cursor.getString(cursor.getColumnIndexOrThrow("customer_name")));
-        order.setCustomerPhone(cursor.getString(cursor.getColumnIndexOrThrow("customer_phone")));
-        order.setSubtotal(cursor.getDouble(cursor.getColumnIndexOrThrow("subtotal")));
-        order.setTax(cursor.getDouble(cursor.getColumnIndexOrThrow("tax")));
-        order.setTotal(cursor.getDouble(cursor.getColumnIndexOrThrow("total")));
-        order.setPaymentMethod(cursor.getString(cursor.getColumnIndexOrThrow("payment_method")));
-        order.setStatus(cursor.getString(cursor.getColumnIndexOrThrow("status")));
-        order.setInvoiceNumber(cursor.getString(cursor.getColumnIndexOrThrow("invoice_number")));
-        
-        String dateStr = cursor.getString(cursor.getColumnIndexOrThrow("order_date"));
-        try {
-            order.setOrderDate(dateFormat.parse(dateStr));
-        } catch (ParseException e) {
-            order.setOrderDate(new Date());
+    public Cursor queryOrdersForExport(long startMillis, long endMillis) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return db.query(TABLE_ORDERS,
+                new String[]{"invoice_number", "order_date", "customer_name", "customer_phone",
+                        "subtotal", "tax", "total", "payment_method", "status"},
+                "order_date BETWEEN ? AND ?",
+                new String[]{String.valueOf(startMillis), String.valueOf(endMillis)},
+                null, null, "order_date DESC");
+    }
+
+    /** Rows {@link #queryOrdersForExport} will return, counted from the order_date index alone. */
+    public int countOrdersForExport(long startMillis, long endMillis) {
+        return (int) DatabaseUtils.longForQuery(getReadableDatabase(),
+                "SELECT COUNT(*) FROM " + TABLE_ORDERS + " WHERE order_date BETWEEN ? AND ?",
+                new String[]{String.valueOf(startMillis), String.valueOf(endMillis)});
+    }
+
+    public SalesSummary getSalesSummary(long startMillis, long endMillis) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(
+                "SELECT COALESCE(SUM(order_count), 0), COALESCE(SUM(gross), 0), " +
+                "COALESCE(MIN(min_total), 0), COALESCE(MAX(max_total), 0) " +
+                "FROM " + DailySalesRollup.TABLE_DAILY_SALES + " WHERE day BETWEEN ? AND ?",
+                new String[]{String.valueOf(DailySalesRollup.dayKey(startMillis)),
+                        String.valueOf(DailySalesRollup.dayKey(endMillis))});
+        SalesSummary summary = new SalesSummary(0, 0, 0, 0);
+        if (cursor.moveToFirst()) {
+            summary = new SalesSummary(cursor.getInt(0), cursor.getLong(1),
+                    cursor.getLong(2), cursor.getLong(3));
         }
-        
-        return order;
+        cursor.close();
+        return summary;
+    }
+
+    public SalesHeatmap getSalesHeatmap(long startMillis, long endMillis) {
+        return HourlySales.scan(getReadableDatabase(), startMillis, endMillis);
+    }
+
+    public List<ItemSales> getTopItems(long startMillis, long endMillis, int limit) {
+        return ItemSalesReport.top(getReadableDatabase(), startMillis, endMillis, limit);
+    }
+
+    public Cursor queryItemSalesForExport(long startMillis, long endMillis) {
+        return ItemSalesReport.queryAll(getReadableDatabase(), startMillis, endMillis);
+    }
+
+    public int countItemSalesForExport(long startMillis, long endMillis) {
+        return ItemSalesReport.count(getReadableDatabase(), startMillis, endMillis);
     }
 
     public List<OrderItem> getOrderItems(long orderId) {
@@ -310,39 +457,35 @@ public class DBHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.query(TABLE_ORDER_ITEMS, null, "order_id = ?", 
                 new String[]{String.valueOf(orderId)}, null, null, null);
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                items.add(cursorToOrderItem(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
+        OrderItemRowMapper mapper = new OrderItemRowMapper(cursor);
+        while (cursor.moveToNext()) {
+            items.add(mapper.map(cursor));
         }
-        db.close();
+        cursor.close();
         return items;
     }
 
-    private OrderItem cursorToOrderItem(Cursor cursor) {
-        OrderItem item = new OrderItem();
-        item.setId(cursor.getLong(cursor.getColumnIndexOrThrow("id")));
-        item.setOrderId(cursor.getLong(cursor.getColumnIndexOrThrow("order_id")));
-        item.setMenuItemId(cursor.getLong(cursor.getColumnIndexOrThrow("menu_item_id")));
-        item.setItemName(cursor.getString(cursor.getColumnIndexOrThrow("item_name")));
-        item.setQuantity(cursor.getInt(cursor.getColumnIndexOrThrow("quantity")));
-        item.setPrice(cursor.getDouble(cursor.getColumnIndexOrThrow("price")));
-        item.setSubtotal(cursor.getDouble(cursor.getColumnIndexOrThrow("subtotal")));
-        return item;
+    public void rebuildDailySales() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            DailySalesRollup.rebuild(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
     }
 
-    public String getSetting(String key) {
+    public Map<String, String> getAllSettings() {
+        Map<String, String> settings = new HashMap<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.query(TABLE_SETTINGS, new String[]{"value"}, 
-                "key = ?", new String[]{key}, null, null, null);
-        String value = null;
-        if (cursor != null && cursor.moveToFirst()) {
-            value = cursor.getString(0);
-            cursor.close();
+        Cursor cursor = db.query(TABLE_SETTINGS, new String[]{"key", "value"},
+                null, null, null, null, null);
+        while (cursor.moveToNext()) {
+            settings.put(cursor.getString(0), cursor.getString(1));
         }
-        db.close();
-        return value;
+        cursor.close();
+        return settings;
     }
 
     public void setSetting(String key, String value) {
@@ -354,22 +497,18 @@ public class DBHelper extends SQLiteOpenHelper {
             values.put("key", key);
             db.insert(TABLE_SETTINGS, null, values);
         }
-        db.close();
     }
 
-    public String generateInvoiceNumber() {
-        String prefix = "INV";
-        String date = new SimpleDateFormat("yyyyMMdd", Locale.getDefault()).format(new Date());
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(
-                "SELECT COUNT(*) FROM " + TABLE_ORDERS + " WHERE invoice_number LIKE ?",
-                new String[]{prefix + date + "%"});
-        int count = 0;
-        if (cursor != null && cursor.moveToFirst()) {
-            count = cursor.getInt(0);
-            cursor.close();
+    public void setSettings(Map<String, String> settings) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Map.Entry<String, String> entry : settings.entrySet()) {
+                setSetting(entry.getKey(), entry.getValue());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
         }
-        db.close();
-        return String.format("%s%s%04d", prefix, date, count + 1);
     }
 }
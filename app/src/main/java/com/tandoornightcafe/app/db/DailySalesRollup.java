@@ -0,0 +1,118 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.tandoornightcafe.app.model.Order;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maintains the {@code daily_sales} and {@code daily_sales_by_payment} rollups, one row
+ * per local calendar day (keyed yyyyMMdd), so date-range reports read a few hundred rows
+ * a year instead of every order. Callers must already be inside a write transaction.
+ */
+final class DailySalesRollup {
+    static final String TABLE_DAILY_SALES = "daily_sales";
+    static final String TABLE_DAILY_SALES_BY_PAYMENT = "daily_sales_by_payment";
+
+    private DailySalesRollup() {
+    }
+
+    static int dayKey(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar.get(Calendar.YEAR) * 10000
+                + (calendar.get(Calendar.MONTH) + 1) * 100
+                + calendar.get(Calendar.DAY_OF_MONTH);
+    }
+
+    static void record(SQLiteDatabase db, Order order) {
+        int day = dayKey(order.getOrderDate());
+        long total = order.getTotal();
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_DAILY_SALES + " (day) VALUES (?)",
+                new Object[]{day});
+        db.execSQL("UPDATE " + TABLE_DAILY_SALES + " SET " +
+                "order_count = order_count + 1, " +
+                "subtotal = subtotal + ?, " +
+                "tax = tax + ?, " +
+                "gross = gross + ?, " +
+                "min_total = MIN(COALESCE(min_total, ?), ?), " +
+                "max_total = MAX(COALESCE(max_total, ?), ?) " +
+                "WHERE day = ?",
+                new Object[]{order.getSubtotal(), order.getTax(), total, total, total, total, total, day});
+
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_DAILY_SALES_BY_PAYMENT + " (day, payment_method) " +
+                "VALUES (?, ?)", new Object[]{day, order.getPaymentMethod()});
+        db.execSQL("UPDATE " + TABLE_DAILY_SALES_BY_PAYMENT + " SET " +
+                "order_count = order_count + 1, " +
+                "gross = gross + ? " +
+                "WHERE day = ? AND payment_method = ?",
+                new Object[]{total, day, order.getPaymentMethod()});
+    }
+
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_DAILY_SALES);
+        db.execSQL("DELETE FROM " + TABLE_DAILY_SALES_BY_PAYMENT);
+
+        Map<Integer, DayTotals> days = new HashMap<>();
+        Cursor cursor = db.rawQuery("SELECT order_date, subtotal, tax, total, payment_method " +
+                "FROM orders", null);
+        try {
+            while (cursor.moveToNext()) {
+                int day = dayKey(cursor.getLong(0));
+                DayTotals totals = days.get(day);
+                if (totals == null) {
+                    totals = new DayTotals();
+                    days.put(day, totals);
+                }
+                totals.add(cursor.getLong(1), cursor.getLong(2), cursor.getLong(3), cursor.getString(4));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        for (Map.Entry<Integer, DayTotals> entry : days.entrySet()) {
+            DayTotals totals = entry.getValue();
+            db.execSQL("INSERT INTO " + TABLE_DAILY_SALES + " (day, order_count, subtotal, tax, gross, " +
+                    "min_total, max_total) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    new Object[]{entry.getKey(), totals.orderCount, totals.subtotal, totals.tax,
+                            totals.gross, totals.minTotal, totals.maxTotal});
+            for (Map.Entry<String, long[]> payment : totals.byPayment.entrySet()) {
+                db.execSQL("INSERT INTO " + TABLE_DAILY_SALES_BY_PAYMENT + " (day, payment_method, " +
+                        "order_count, gross) VALUES (?, ?, ?, ?)",
+                        new Object[]{entry.getKey(), payment.getKey(),
+                                payment.getValue()[0], payment.getValue()[1]});
+            }
+        }
+    }
+
+    private static class DayTotals {
+        long orderCount;
+        long subtotal;
+        long tax;
+        long gross;
+        long minTotal = Long.MAX_VALUE;
+        long maxTotal = Long.MIN_VALUE;
+        final Map<String, long[]> byPayment = new HashMap<>();
+
+        void add(long orderSubtotal, long orderTax, long orderTotal, String paymentMethod) {
+            orderCount++;
+            subtotal += orderSubtotal;
+            tax += orderTax;
+            gross += orderTotal;
+            minTotal = Math.min(minTotal, orderTotal);
+            maxTotal = Math.max(maxTotal, orderTotal);
+
+            long[] payment = byPayment.get(paymentMethod);
+            if (payment == null) {
+                payment = new long[2];
+                byPayment.put(paymentMethod, payment);
+            }
+            payment[0]++;
+            payment[1] += orderTotal;
+        }
+    }
+}
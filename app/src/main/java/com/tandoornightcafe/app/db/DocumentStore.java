@@ -0,0 +1,522 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Environment;
+
+import androidx.annotation.WorkerThread;
+
+import com.tandoornightcafe.app.util.AppExecutors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Owns the invoice PDFs, thermal receipts and report CSVs under the app's Documents directory. Every file is
+ * recorded in the {@code documents} table, so finding an invoice is a keyed lookup rather
+ * than a directory listing. New invoices go into one folder per month, and invoices from earlier
+ * months are packed into one zip per month. Each zip has a row of its own carrying its size;
+ * the rows of the invoices inside it point at it and count for nothing.
+ * <p>
+ * Everything on disk counts toward the quota. When it is exceeded, the least recently used loose
+ * invoices and monthly archives are deleted until the rest fits. Invoices can be regenerated from
+ * the database, so eviction never loses data; exported reports are the user's and are counted but
+ * never evicted. Table writes go through the repository's writer thread. Creating the store and
+ * every method do disk I/O and must run off the main thread.
+ */
+public class DocumentStore {
+    public static final String KIND_INVOICE = "invoice";
+    public static final String KIND_RECEIPT = "receipt";
+    public static final String KIND_REPORT = "report";
+
+    static final String TABLE_DOCUMENTS = "documents";
+    // A monthly zip of invoices and receipts; doc_key is the yyyyMM month.
+    private static final String KIND_ARCHIVE = "archive";
+
+    private static final String DIR_INVOICES = "Invoices";
+    private static final String DIR_REPORTS = "Reports";
+    private static final String DIR_ARCHIVE = "archive";
+    private static final String DIR_EXTRACTED = "invoices";
+    private static final String LEGACY_INDEXED_MARKER = ".indexed";
+    private static final String INVOICE_PREFIX = "Invoice_";
+    private static final String INVOICE_SUFFIX = ".pdf";
+    private static final long DEFAULT_QUOTA_BYTES = 256L * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
+    // Unpacked copies are handed to other apps by share intents, which read them later.
+    private static final long EXTRACTED_MAX_AGE_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static volatile DocumentStore instance;
+
+    private final DBHelper dbHelper;
+    private final AppExecutors executors;
+    private final File root;
+    private final File extractedDir;
+    private volatile long quotaBytes = DEFAULT_QUOTA_BYTES;
+
+    public static DocumentStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (DocumentStore.class) {
+                if (instance == null) {
+                    instance = new DocumentStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private DocumentStore(Context context) {
+        dbHelper = DBHelper.getInstance(context);
+        executors = AppExecutors.getInstance();
+        // Null when shared storage is unavailable; every method checks before touching it.
+        root = context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS);
+        extractedDir = new File(context.getCacheDir(), DIR_EXTRACTED);
+    }
+
+    public void setQuotaBytes(long quotaBytes) {
+        this.quotaBytes = quotaBytes;
+    }
+
+    /**
+     * Where a new invoice or receipt should be rendered, {@code extension} being its file
+     * extension; call {@link #register} once it is written.
+     */
+    @WorkerThread
+    public File newInvoiceFile(String invoiceNumber, String extension) throws IOException {
+        requireRoot();
+        File directory = new File(new File(root, DIR_INVOICES), String.valueOf(monthKey(System.currentTimeMillis())));
+        directory.mkdirs();
+        return new File(directory, INVOICE_PREFIX + invoiceNumber + extension);
+    }
+
+    /** Where a new report should be written; call {@link #register} once it is complete. */
+    @WorkerThread
+    public File newReportFile(String fileName) throws IOException {
+        requireRoot();
+        File directory = new File(root, DIR_REPORTS);
+        directory.mkdirs();
+        return new File(directory, fileName);
+    }
+
+    @WorkerThread
+    public synchronized void register(String kind, String key, File file) {
+        if (root == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        ContentValues values = new ContentValues();
+        values.put("kind", kind);
+        values.put("doc_key", key);
+        values.put("path", relativePath(file));
+        values.putNull("archive");
+        values.put("size", file.length());
+        values.put("created_at", now);
+        values.put("last_access", now);
+        write(() -> dbHelper.getWritableDatabase().insertWithOnConflict(TABLE_DOCUMENTS, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE));
+        enforceQuota();
+    }
+
+    /**
+     * Returns the stored invoice or receipt of the given kind, unpacking it from its monthly
+     * archive if needed, or null when it has to be rendered again.
+     */
+    @WorkerThread
+    public synchronized File findInvoice(String kind, String invoiceNumber) {
+        if (root == null) {
+            return null;
+        }
+        Cursor cursor = dbHelper.getReadableDatabase().query(TABLE_DOCUMENTS, new String[]{"id", "path", "archive"},
+                "kind = ? AND doc_key = ?", new String[]{kind, invoiceNumber},
+                null, null, null);
+        long id = -1;
+        String path = null;
+        String archive = null;
+        if (cursor.moveToFirst()) {
+            id = cursor.getLong(0);
+            path = cursor.getString(1);
+            archive = cursor.getString(2);
+        }
+        cursor.close();
+        if (id == -1) {
+            return null;
+        }
+
+        String[] idArg = {String.valueOf(id)};
+        File file = archive == null ? new File(root, path) : extract(new File(root, archive), path);
+        if (file == null || !file.exists()) {
+            write(() -> dbHelper.getWritableDatabase().delete(TABLE_DOCUMENTS, "id = ?", idArg));
+            return null;
+        }
+        ContentValues values = new ContentValues();
+        values.put("last_access", System.currentTimeMillis());
+        // An archived invoice being opened keeps its archive in use too.
+        String where = archive == null ? "id = ?" : "id = ? OR (kind = ? AND path = ?)";
+        String[] whereArgs = archive == null ? idArg : new String[]{idArg[0], KIND_ARCHIVE, archive};
+        // Only feeds eviction order, so the caller does not wait for it.
+        executors.dbWriter().execute(() ->
+                dbHelper.getWritableDatabase().update(TABLE_DOCUMENTS, values, where, whereArgs));
+        return file;
+    }
+
+    /** Indexes files left by older versions, archives past months and trims to the quota. */
+    @WorkerThread
+    public synchronized void maintain() {
+        if (root == null) {
+            return;
+        }
+        File marker = new File(root, LEGACY_INDEXED_MARKER);
+        if (!marker.exists()) {
+            adoptLegacyFiles(new File(root, DIR_INVOICES), KIND_INVOICE);
+            adoptLegacyFiles(new File(root, DIR_REPORTS), KIND_REPORT);
+            try {
+                marker.createNewFile();
+            } catch (IOException ignored) {
+                // Adopting again next time is harmless; rows are inserted with CONFLICT_IGNORE.
+            }
+        }
+        compactInvoices();
+        enforceQuota();
+        sweepExtracted();
+    }
+
+    // Earlier versions wrote straight into flat Invoices/ and Reports/ folders with no index.
+    // This lists them once; afterwards the table is the only source of truth.
+    private void adoptLegacyFiles(File directory, String kind) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<ContentValues> rows = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (!file.isFile()) {
+                continue;
+            }
+            String name = file.getName();
+            String key = name;
+            if (KIND_INVOICE.equals(kind)) {
+                if (!name.startsWith(INVOICE_PREFIX) || !name.endsWith(INVOICE_SUFFIX)) {
+                    continue;
+                }
+                key = name.substring(INVOICE_PREFIX.length(), name.length() - INVOICE_SUFFIX.length());
+            }
+            ContentValues values = new ContentValues();
+            values.put("kind", kind);
+            values.put("doc_key", key);
+            values.put("path", relativePath(file));
+            values.put("size", file.length());
+            values.put("created_at", file.lastModified());
+            values.put("last_access", file.lastModified());
+            rows.add(values);
+        }
+        write(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (ContentValues values : rows) {
+                    db.insertWithOnConflict(TABLE_DOCUMENTS, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /** Packs loose invoices and receipts from before the current month into one zip per month. */
+    private void compactInvoices() {
+        int currentMonth = monthKey(System.currentTimeMillis());
+        Map<Integer, List<Long>> idsByMonth = new LinkedHashMap<>();
+        Map<Long, String> paths = new LinkedHashMap<>();
+        Cursor cursor = dbHelper.getReadableDatabase().query(TABLE_DOCUMENTS, new String[]{"id", "path", "created_at"},
+                "kind IN (?, ?) AND archive IS NULL", new String[]{KIND_INVOICE, KIND_RECEIPT},
+                null, null, "created_at");
+        while (cursor.moveToNext()) {
+            int month = monthKey(cursor.getLong(2));
+            if (month >= currentMonth) {
+                continue;
+            }
+            List<Long> ids = idsByMonth.get(month);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                idsByMonth.put(month, ids);
+            }
+            ids.add(cursor.getLong(0));
+            paths.put(cursor.getLong(0), cursor.getString(1));
+        }
+        cursor.close();
+
+        for (Map.Entry<Integer, List<Long>> entry : idsByMonth.entrySet()) {
+            File archive = new File(new File(new File(root, DIR_INVOICES), DIR_ARCHIVE),
+                    DIR_INVOICES + "_" + entry.getKey() + ".zip");
+            List<File> packed = new ArrayList<>();
+            List<Long> packedIds = new ArrayList<>();
+            try {
+                appendToArchive(archive, entry.getValue(), paths, packed, packedIds);
+            } catch (IOException e) {
+                continue;
+            }
+
+            String archivePath = relativePath(archive);
+            long now = System.currentTimeMillis();
+            ContentValues archiveRow = new ContentValues();
+            archiveRow.put("kind", KIND_ARCHIVE);
+            archiveRow.put("doc_key", String.valueOf(entry.getKey()));
+            archiveRow.put("path", archivePath);
+            archiveRow.putNull("archive");
+            archiveRow.put("size", archive.length());
+            archiveRow.put("created_at", now);
+            archiveRow.put("last_access", now);
+            write(() -> {
+                SQLiteDatabase db = dbHelper.getWritableDatabase();
+                db.beginTransaction();
+                try {
+                    ContentValues values = new ContentValues();
+                    for (int i = 0; i < packedIds.size(); i++) {
+                        values.clear();
+                        values.put("archive", archivePath);
+                        values.put("path", packed.get(i).getName());
+                        values.put("size", 0);
+                        db.update(TABLE_DOCUMENTS, values, "id = ?", new String[]{String.valueOf(packedIds.get(i))});
+                    }
+                    db.insertWithOnConflict(TABLE_DOCUMENTS, null, archiveRow, SQLiteDatabase.CONFLICT_REPLACE);
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            });
+            for (File file : packed) {
+                file.delete();
+            }
+        }
+    }
+
+    // Zip files cannot be appended to in place, so existing entries are copied into a new archive.
+    // That only happens when an invoice from a month already packed is rendered again, and all of
+    // the month's new files go in with one copy. A loose file whose name is already archived
+    // replaces the old entry; names must stay unique or ZipOutputStream throws.
+    private void appendToArchive(File archive, List<Long> ids, Map<Long, String> paths,
+                                 List<File> packed, List<Long> packedIds) throws IOException {
+        List<File> files = new ArrayList<>(ids.size());
+        List<Long> fileIds = new ArrayList<>(ids.size());
+        Set<String> names = new HashSet<>();
+        for (Long id : ids) {
+            File file = new File(root, paths.get(id));
+            if (file.exists() && names.add(file.getName())) {
+                files.add(file);
+                fileIds.add(id);
+            }
+        }
+
+        archive.getParentFile().mkdirs();
+        File temp = new File(archive.getPath() + ".tmp");
+        boolean replaced = false;
+        try {
+            writeArchive(temp, archive, names, files, fileIds, packed, packedIds);
+            if (!temp.renameTo(archive)) {
+                throw new IOException("Could not replace " + archive);
+            }
+            replaced = true;
+        } finally {
+            if (!replaced) {
+                temp.delete();
+            }
+        }
+    }
+
+    private void writeArchive(File temp, File archive, Set<String> names, List<File> files, List<Long> fileIds,
+                              List<File> packed, List<Long> packedIds) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            if (archive.exists()) {
+                ZipInputStream in = new ZipInputStream(new BufferedInputStream(new FileInputStream(archive)));
+                try {
+                    ZipEntry existing;
+                    while ((existing = in.getNextEntry()) != null) {
+                        if (!names.add(existing.getName())) {
+                            continue;
+                        }
+                        out.putNextEntry(new ZipEntry(existing.getName()));
+                        copy(in, out, buffer);
+                        out.closeEntry();
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+            for (int i = 0; i < files.size(); i++) {
+                File file = files.get(i);
+                Long id = fileIds.get(i);
+                out.putNextEntry(new ZipEntry(file.getName()));
+                InputStream in = new FileInputStream(file);
+                try {
+                    copy(in, out, buffer);
+                } finally {
+                    in.close();
+                }
+                out.closeEntry();
+                packed.add(file);
+                packedIds.add(id);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private File extract(File archive, String entryName) {
+        if (!archive.exists()) {
+            return null;
+        }
+        extractedDir.mkdirs();
+        File target = new File(extractedDir, entryName);
+        if (target.exists()) {
+            // Keeps a copy that is still being handed out from being swept.
+            target.setLastModified(System.currentTimeMillis());
+            return target;
+        }
+        try {
+            ZipFile zip = new ZipFile(archive);
+            try {
+                ZipEntry entry = zip.getEntry(entryName);
+                if (entry == null) {
+                    return null;
+                }
+                InputStream in = zip.getInputStream(entry);
+                OutputStream out = new FileOutputStream(target);
+                try {
+                    copy(in, out, new byte[COPY_BUFFER_SIZE]);
+                } finally {
+                    in.close();
+                    out.close();
+                }
+            } finally {
+                zip.close();
+            }
+        } catch (IOException e) {
+            target.delete();
+            return null;
+        }
+        return target;
+    }
+
+    /**
+     * Deletes the least recently used loose invoices, receipts and monthly archives until
+     * everything on disk, reports included, fits in the quota. An evicted archive takes the
+     * rows of the invoices inside it along.
+     */
+    private void enforceQuota() {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        long used = DatabaseUtils.longForQuery(db, "SELECT COALESCE(SUM(size), 0) FROM " + TABLE_DOCUMENTS +
+                " WHERE archive IS NULL", null);
+        if (used <= quotaBytes) {
+            return;
+        }
+        List<Long> evictedIds = new ArrayList<>();
+        List<String> evictedPaths = new ArrayList<>();
+        List<String> evictedArchives = new ArrayList<>();
+        Cursor cursor = db.query(TABLE_DOCUMENTS, new String[]{"id", "path", "size", "kind"},
+                "archive IS NULL AND kind != ?", new String[]{KIND_REPORT}, null, null, "last_access");
+        while (used > quotaBytes && cursor.moveToNext()) {
+            evictedIds.add(cursor.getLong(0));
+            evictedPaths.add(cursor.getString(1));
+            used -= cursor.getLong(2);
+            if (KIND_ARCHIVE.equals(cursor.getString(3))) {
+                evictedArchives.add(cursor.getString(1));
+            }
+        }
+        cursor.close();
+
+        write(() -> {
+            SQLiteDatabase writable = dbHelper.getWritableDatabase();
+            writable.beginTransaction();
+            try {
+                for (Long id : evictedIds) {
+                    writable.delete(TABLE_DOCUMENTS, "id = ?", new String[]{String.valueOf(id)});
+                }
+                for (String archive : evictedArchives) {
+                    writable.delete(TABLE_DOCUMENTS, "archive = ?", new String[]{archive});
+                }
+                writable.setTransactionSuccessful();
+            } finally {
+                writable.endTransaction();
+            }
+        });
+        for (String path : evictedPaths) {
+            new File(root, path).delete();
+        }
+    }
+
+    private void sweepExtracted() {
+        File[] files = extractedDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - EXTRACTED_MAX_AGE_MILLIS;
+        for (File file : files) {
+            if (file.lastModified() < cutoff) {
+                file.delete();
+            }
+        }
+    }
+
+    /** Runs a table write on the writer thread and waits for it, so it never races another write. */
+    private void write(Runnable update) {
+        FutureTask<Void> task = new FutureTask<>(update, null);
+        executors.dbWriter().execute(task);
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+    }
+
+    private void requireRoot() throws IOException {
+        if (root == null) {
+            throw new IOException("Shared storage is not available");
+        }
+    }
+
+    private String relativePath(File file) {
+        return file.getAbsolutePath().substring(root.getAbsolutePath().length() + 1);
+    }
+
+    private static int monthKey(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar.get(Calendar.YEAR) * 100 + calendar.get(Calendar.MONTH) + 1;
+    }
+
+    private static void copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+}
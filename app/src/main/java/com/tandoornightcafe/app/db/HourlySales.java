@@ -0,0 +1,43 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.tandoornightcafe.app.model.SalesHeatmap;
+
+import java.util.TimeZone;
+
+/**
+ * Builds the weekday-by-hour heatmap. The daily_sales rollup has no hour, so this scans the
+ * orders in range once, reading only order_date and total, and buckets each epoch timestamp
+ * with integer arithmetic instead of a Calendar per row.
+ */
+final class HourlySales {
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    // 1970-01-01 was a Thursday, day 3 counting from Monday.
+    private static final int EPOCH_DAY_OF_WEEK = 3;
+
+    private HourlySales() {
+    }
+
+    static SalesHeatmap scan(SQLiteDatabase db, long startMillis, long endMillis) {
+        SalesHeatmap heatmap = new SalesHeatmap();
+        TimeZone timeZone = TimeZone.getDefault();
+        Cursor cursor = db.rawQuery("SELECT order_date, total FROM orders WHERE order_date BETWEEN ? AND ?",
+                new String[]{String.valueOf(startMillis), String.valueOf(endMillis)});
+        try {
+            while (cursor.moveToNext()) {
+                long millis = cursor.getLong(0);
+                long local = millis + timeZone.getOffset(millis);
+                long epochDay = Math.floorDiv(local, DAY_MILLIS);
+                int hour = (int) (Math.floorMod(local, DAY_MILLIS) / HOUR_MILLIS);
+                int day = (int) Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK, 7L);
+                heatmap.add(day, hour, cursor.getLong(1));
+            }
+        } finally {
+            cursor.close();
+        }
+        return heatmap;
+    }
+}
@@ -0,0 +1,32 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.Locale;
+
+/**
+ * Per-day invoice counters, one row per local calendar day (keyed yyyyMMdd). Numbers are
+ * taken inside the order's own transaction, so a rolled-back order gives its number back
+ * and two checkouts can never be handed the same one.
+ */
+final class InvoiceSequence {
+    static final String TABLE_INVOICE_SEQUENCE = "invoice_sequence";
+
+    private static final String PREFIX = "INV";
+
+    private InvoiceSequence() {
+    }
+
+    /** Allocates the next invoice number for the order's day. Callers must be in a write transaction. */
+    static String next(SQLiteDatabase db, long orderDateMillis) {
+        int day = DailySalesRollup.dayKey(orderDateMillis);
+        Object[] args = {day};
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_INVOICE_SEQUENCE + " (day, last_value) VALUES (?, 0)", args);
+        db.execSQL("UPDATE " + TABLE_INVOICE_SEQUENCE + " SET last_value = last_value + 1 WHERE day = ?", args);
+        long value = DatabaseUtils.longForQuery(db,
+                "SELECT last_value FROM " + TABLE_INVOICE_SEQUENCE + " WHERE day = ?",
+                new String[]{String.valueOf(day)});
+        return String.format(Locale.US, "%s%d%04d", PREFIX, day, value);
+    }
+}
@@ -0,0 +1,58 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.tandoornightcafe.app.model.ItemSales;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Item-level sales for a date range, ranked by revenue. One GROUP BY join: orders are found
+ * through the order_date index and their lines through a covering order_items index, so
+ * neither table's rows are read.
+ */
+final class ItemSalesReport {
+    // Bare item_name next to MAX(order_id) takes the name from the latest order, so an item
+    // renamed during the range is reported once, under its newest name.
+    private static final String QUERY = "SELECT oi.menu_item_id, oi.item_name, " +
+            "SUM(oi.quantity) AS quantity, SUM(oi.subtotal) AS revenue, MAX(oi.order_id) " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.order_date BETWEEN ? AND ? " +
+            "GROUP BY oi.menu_item_id " +
+            "ORDER BY revenue DESC, quantity DESC, oi.menu_item_id";
+
+    private ItemSalesReport() {
+    }
+
+    /** Replaces the plain order_id index, which is a prefix of this one. */
+    static List<ItemSales> top(SQLiteDatabase db, long startMillis, long endMillis, int limit) {
+        List<ItemSales> items = new ArrayList<>(limit);
+        Cursor cursor = db.rawQuery(QUERY + " LIMIT ?", new String[]{String.valueOf(startMillis),
+                String.valueOf(endMillis), String.valueOf(limit)});
+        try {
+            while (cursor.moveToNext()) {
+                items.add(new ItemSales(cursor.getLong(0), cursor.getString(1),
+                        cursor.getInt(2), cursor.getLong(3)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return items;
+    }
+
+    /** Rows {@link #queryAll} will return, counted from the same indexes without summing or sorting. */
+    static int count(SQLiteDatabase db, long startMillis, long endMillis) {
+        return (int) DatabaseUtils.longForQuery(db, "SELECT COUNT(DISTINCT oi.menu_item_id) " +
+                "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+                "WHERE o.order_date BETWEEN ? AND ?",
+                new String[]{String.valueOf(startMillis), String.valueOf(endMillis)});
+    }
+
+    /** Every item in the range, in the same order as {@link #top}. The caller closes it. */
+    static Cursor queryAll(SQLiteDatabase db, long startMillis, long endMillis) {
+        return db.rawQuery(QUERY, new String[]{String.valueOf(startMillis), String.valueOf(endMillis)});
+    }
+}
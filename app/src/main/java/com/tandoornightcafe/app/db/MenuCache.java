@@ -0,0 +1,125 @@
+package com.tandoornightcafe.app.db;
+
+import com.tandoornightcafe.app.model.MenuItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Process-wide copy of the menu. Readers see an immutable snapshot through a volatile
+ * field; every change builds a new snapshot with the name-sorted list, the per-category
+ * buckets and the id index precomputed. Mutations are only made from the writer thread,
+ * after the matching SQLite write has succeeded, so the cache never runs ahead of disk.
+ */
+final class MenuCache {
+    private static final class Snapshot {
+        final List<MenuItem> all;
+        final Map<Long, List<MenuItem>> byCategory;
+        final Map<Long, MenuItem> byId;
+
+        Snapshot(List<MenuItem> sorted) {
+            Map<Long, List<MenuItem>> buckets = new LinkedHashMap<>();
+            Map<Long, MenuItem> ids = new HashMap<>(sorted.size() * 2);
+            for (MenuItem item : sorted) {
+                List<MenuItem> bucket = buckets.get(item.getCategoryId());
+                if (bucket == null) {
+                    bucket = new ArrayList<>();
+                    buckets.put(item.getCategoryId(), bucket);
+                }
+                bucket.add(item);
+                ids.put(item.getId(), item);
+            }
+            for (Map.Entry<Long, List<MenuItem>> entry : buckets.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            all = Collections.unmodifiableList(sorted);
+            byCategory = buckets;
+            byId = ids;
+        }
+    }
+
+    private volatile Snapshot snapshot;
+
+    boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    List<MenuItem> getAll() {
+        return snapshot.all;
+    }
+
+    List<MenuItem> getByCategory(long categoryId) {
+        List<MenuItem> bucket = snapshot.byCategory.get(categoryId);
+        return bucket != null ? bucket : Collections.<MenuItem>emptyList();
+    }
+
+    MenuItem get(long id) {
+        return snapshot.byId.get(id);
+    }
+
+    /** The cached items whose ids are in {@code ids}, in name order. */
+    List<MenuItem> select(Set<Long> ids) {
+        List<MenuItem> all = snapshot.all;
+        List<MenuItem> selected = new ArrayList<>(Math.min(ids.size(), all.size()));
+        for (int i = 0, size = all.size(); i < size && selected.size() < ids.size(); i++) {
+            MenuItem item = all.get(i);
+            if (ids.contains(item.getId())) {
+                selected.add(item);
+            }
+        }
+        return Collections.unmodifiableList(selected);
+    }
+
+    /** Replaces the cache with rows already sorted by name, as DBHelper returns them. */
+    void load(List<MenuItem> items) {
+        List<MenuItem> copies = new ArrayList<>(items.size());
+        for (MenuItem item : items) {
+            copies.add(copyOf(item));
+        }
+        snapshot = new Snapshot(copies);
+    }
+
+    void put(MenuItem item) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        List<MenuItem> items = new ArrayList<>(current.all.size() + 1);
+        for (MenuItem existing : current.all) {
+            if (existing.getId() != item.getId()) {
+                items.add(existing);
+            }
+        }
+        MenuItem copy = copyOf(item);
+        int index = 0;
+        while (index < items.size() && items.get(index).getName().compareTo(copy.getName()) <= 0) {
+            index++;
+        }
+        items.add(index, copy);
+        snapshot = new Snapshot(items);
+    }
+
+    void remove(long id) {
+        Snapshot current = snapshot;
+        if (current == null || !current.byId.containsKey(id)) {
+            return;
+        }
+        List<MenuItem> items = new ArrayList<>(current.all.size());
+        for (MenuItem existing : current.all) {
+            if (existing.getId() != id) {
+                items.add(existing);
+            }
+        }
+        snapshot = new Snapshot(items);
+    }
+
+    private static MenuItem copyOf(MenuItem item) {
+        return new MenuItem(item.getId(), item.getName(), item.getDescription(),
+                item.getCategoryId(), item.getPrice());
+    }
+}
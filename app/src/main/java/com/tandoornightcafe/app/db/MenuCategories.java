@@ -0,0 +1,35 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.tandoornightcafe.app.model.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The categories table. Each row carries its item count, kept current by triggers on
+ * menu_items, so building the category tabs never has to count the menu.
+ */
+final class MenuCategories {
+    static final String TABLE_CATEGORIES = "categories";
+
+    // Fixed ids for the built-in categories, in display order.
+    private MenuCategories() {
+    }
+
+    static List<Category> getAll(SQLiteDatabase db) {
+        List<Category> categories = new ArrayList<>();
+        Cursor cursor = db.query(TABLE_CATEGORIES, new String[]{"id", "code", "item_count"},
+                null, null, null, null, "sort_order, id");
+        try {
+            while (cursor.moveToNext()) {
+                categories.add(new Category(cursor.getLong(0), cursor.getString(1), cursor.getInt(2)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return categories;
+    }
+}
@@ -0,0 +1,27 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+
+import com.tandoornightcafe.app.model.MenuItem;
+
+/** Maps menu item rows with column indices resolved once per cursor. */
+final class MenuItemRowMapper {
+    private final int id;
+    private final int name;
+    private final int description;
+    private final int categoryId;
+    private final int price;
+
+    MenuItemRowMapper(Cursor cursor) {
+        id = cursor.getColumnIndexOrThrow("id");
+        name = cursor.getColumnIndexOrThrow("name");
+        description = cursor.getColumnIndexOrThrow("description");
+        categoryId = cursor.getColumnIndexOrThrow("category_id");
+        price = cursor.getColumnIndexOrThrow("price");
+    }
+
+    MenuItem map(Cursor cursor) {
+        return new MenuItem(cursor.getLong(id), cursor.getString(name),
+                cursor.getString(description), cursor.getLong(categoryId), cursor.getLong(price));
+    }
+}
@@ -0,0 +1,72 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.tandoornightcafe.app.util.SearchNormalizer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * FTS4 index over menu item names and descriptions, stored as {@link SearchNormalizer} keys
+ * with docid = menu_items.id. The keys are computed in Java, so the index is kept in step
+ * by DBHelper's menu writes rather than by triggers. Prefix indexes for one to three
+ * characters keep per-keystroke "pa*" style queries off a full term scan.
+ */
+final class MenuSearchIndex {
+    static final String TABLE_MENU_SEARCH = "menu_search";
+
+    private MenuSearchIndex() {
+    }
+
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_MENU_SEARCH);
+        SQLiteStatement insert = compileInsert(db);
+        Cursor cursor = db.rawQuery("SELECT id, name, description FROM menu_items", null);
+        try {
+            while (cursor.moveToNext()) {
+                put(insert, cursor.getLong(0), cursor.getString(1), cursor.getString(2));
+            }
+        } finally {
+            cursor.close();
+            insert.close();
+        }
+    }
+
+    /** The statement {@link #put} runs; DBHelper compiles it once and keeps it. */
+    static SQLiteStatement compileInsert(SQLiteDatabase db) {
+        return db.compileStatement("INSERT OR REPLACE INTO " + TABLE_MENU_SEARCH +
+                " (docid, name, description) VALUES (?, ?, ?)");
+    }
+
+    static void put(SQLiteStatement insert, long id, String name, String description) {
+        insert.bindLong(1, id);
+        insert.bindString(2, SearchNormalizer.normalize(name));
+        insert.bindString(3, SearchNormalizer.normalize(description));
+        insert.executeInsert();
+    }
+
+    static void delete(SQLiteDatabase db, long id) {
+        db.delete(TABLE_MENU_SEARCH, "docid = ?", new String[]{String.valueOf(id)});
+    }
+
+    /** Ids of the items matching any of the {@link SearchNormalizer#toMatchQueries} expressions. */
+    static Set<Long> search(SQLiteDatabase db, List<String> matchQueries) {
+        Set<Long> ids = new HashSet<>();
+        for (String matchQuery : matchQueries) {
+            Cursor cursor = db.rawQuery("SELECT docid FROM " + TABLE_MENU_SEARCH +
+                    " WHERE " + TABLE_MENU_SEARCH + " MATCH ?", new String[]{matchQuery});
+            try {
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getLong(0));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        return ids;
+    }
+}
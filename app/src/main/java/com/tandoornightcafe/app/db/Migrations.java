@@ -0,0 +1,431 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Step-by-step schema upgrades. {@link DBHelper#onCreate} builds the version 1
+ * schema and then replays every step, so fresh installs and upgraded installs
+ * always end up with the same schema. Steps must never be edited once shipped;
+ * add a new version instead. For the same reason each step spells out its own SQL
+ * and conversions instead of calling the classes that use the tables today.
+ * <p>
+ * Tables derived entirely from other tables (the daily sales rollup and the search
+ * indexes) are created empty by their steps and filled by {@link #migrate} once the
+ * schema is final, using the current derivation. Rebuilding one is safe to repeat.
+ */
+final class Migrations {
+    static final int BASE_VERSION = 1;
+    static final int LATEST_VERSION = 14;
+
+    /**
+     * The order_date given by version 3 to orders whose old date text could not be read. Such
+     * orders sort before every real one and can be found with {@code order_date = 0}.
+     */
+    static final long UNKNOWN_ORDER_DATE = 0;
+
+    private static final String[] LEGACY_DATE_PATTERNS = {
+            "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm", "yyyy-MM-dd"
+    };
+
+    private Migrations() {
+    }
+
+    static void migrate(SQLiteDatabase db, int oldVersion, int newVersion) {
+        for (int version = oldVersion + 1; version <= newVersion; version++) {
+            apply(db, version);
+        }
+        rebuildDerivedTables(db, oldVersion);
+    }
+
+    // Each line names the version that created the table. Changing how one is derived (a
+    // SearchNormalizer rule, say) needs a new version with an empty step and its number here.
+    private static void rebuildDerivedTables(SQLiteDatabase db, int oldVersion) {
+        if (oldVersion < 6) {
+            DailySalesRollup.rebuild(db);
+        }
+        if (oldVersion < 10) {
+            MenuSearchIndex.rebuild(db);
+        }
+        if (oldVersion < 11) {
+            OrderSearchIndex.rebuild(db);
+        }
+    }
+
+    private static void apply(SQLiteDatabase db, int version) {
+        switch (version) {
+            case 2:
+                addHotPathIndexes(db);
+                break;
+            case 3:
+                convertOrderDateToEpochMillis(db);
+                break;
+            case 4:
+                convertMoneyToPaise(db);
+                break;
+            case 5:
+                // Steps 5 and 7 swapped idx_orders_order_date for an (order_date, total) index
+                // and back again before either shipped. The plain index carries the rowid, which
+                // gives history paging its (order_date, id) order, and sales totals come from
+                // daily_sales.
+                break;
+            case 6:
+                createDailySalesTables(db);
+                break;
+            case 7:
+                break;
+            case 8:
+                createInvoiceSequence(db);
+                break;
+            case 9:
+                createDocumentsTable(db);
+                break;
+            case 10:
+                db.execSQL("CREATE VIRTUAL TABLE menu_search USING fts4(name, description, prefix=\"1,2,3\")");
+                break;
+            case 11:
+                db.execSQL("CREATE VIRTUAL TABLE order_search USING fts4(customer_name)");
+                db.execSQL("CREATE INDEX idx_orders_customer_phone ON orders(customer_phone, id DESC)");
+                break;
+            case 12:
+                moveMenuToCategoryIds(db);
+                break;
+            case 13:
+                coverOrderItemsForSales(db);
+                break;
+            case 14:
+                indexPhoneDigits(db);
+                break;
+            default:
+                throw new IllegalStateException("No migration to schema version " + version);
+        }
+    }
+
+    private static void addHotPathIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_orders_order_date ON orders(order_date)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_menu_items_category ON menu_items(category, name)");
+    }
+
+    private static void convertOrderDateToEpochMillis(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE orders_new (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "customer_name TEXT NOT NULL, " +
+                "customer_phone TEXT, " +
+                "subtotal REAL NOT NULL, " +
+                "tax REAL NOT NULL, " +
+                "total REAL NOT NULL, " +
+                "payment_method TEXT NOT NULL, " +
+                "status TEXT NOT NULL, " +
+                "order_date INTEGER NOT NULL, " +
+                "invoice_number TEXT UNIQUE NOT NULL)");
+        // order_date was written as local "yyyy-MM-dd HH:mm:ss". SQLite converts the rows it can
+        // read and marks the rest with -1 for the Java pass below.
+        db.execSQL("INSERT INTO orders_new (id, customer_name, customer_phone, subtotal, tax, total, " +
+                "payment_method, status, order_date, invoice_number) " +
+                "SELECT id, customer_name, customer_phone, subtotal, tax, total, payment_method, status, " +
+                "COALESCE(CAST(strftime('%s', order_date, 'utc') AS INTEGER) * 1000, -1), " +
+                "invoice_number FROM orders");
+        SQLiteStatement update = db.compileStatement("UPDATE orders_new SET order_date = ? WHERE id = ?");
+        Cursor cursor = db.rawQuery("SELECT o.id, o.order_date, o.invoice_number " +
+                "FROM orders o JOIN orders_new n ON n.id = o.id WHERE n.order_date = -1", null);
+        try {
+            while (cursor.moveToNext()) {
+                update.bindLong(1, parseLegacyOrderDate(cursor.getString(1), cursor.getString(2)));
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+        db.execSQL("DROP TABLE orders");
+        db.execSQL("ALTER TABLE orders_new RENAME TO orders");
+        db.execSQL("CREATE INDEX idx_orders_order_date ON orders(order_date)");
+    }
+
+    private static void convertMoneyToPaise(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE menu_items_new (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "name TEXT NOT NULL, " +
+                "description TEXT, " +
+                "category TEXT NOT NULL, " +
+                "price INTEGER NOT NULL)");
+        db.execSQL("INSERT INTO menu_items_new (id, name, description, category, price) " +
+                "SELECT id, name, description, category, 0 FROM menu_items");
+        copyAsPaise(db, "menu_items", "price");
+        db.execSQL("DROP TABLE menu_items");
+        db.execSQL("ALTER TABLE menu_items_new RENAME TO menu_items");
+        db.execSQL("CREATE INDEX idx_menu_items_category ON menu_items(category, name)");
+
+        db.execSQL("CREATE TABLE orders_new (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "customer_name TEXT NOT NULL, " +
+                "customer_phone TEXT, " +
+                "subtotal INTEGER NOT NULL, " +
+                "tax INTEGER NOT NULL, " +
+                "total INTEGER NOT NULL, " +
+                "payment_method TEXT NOT NULL, " +
+                "status TEXT NOT NULL, " +
+                "order_date INTEGER NOT NULL, " +
+                "invoice_number TEXT UNIQUE NOT NULL)");
+        db.execSQL("INSERT INTO orders_new (id, customer_name, customer_phone, subtotal, tax, total, " +
+                "payment_method, status, order_date, invoice_number) " +
+                "SELECT id, customer_name, customer_phone, 0, 0, 0, payment_method, status, " +
+                "order_date, invoice_number FROM orders");
+        copyAsPaise(db, "orders", "subtotal", "tax", "total");
+        db.execSQL("DROP TABLE orders");
+        db.execSQL("ALTER TABLE orders_new RENAME TO orders");
+        db.execSQL("CREATE INDEX idx_orders_order_date ON orders(order_date)");
+
+        db.execSQL("CREATE TABLE order_items_new (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "order_id INTEGER NOT NULL, " +
+                "menu_item_id INTEGER NOT NULL, " +
+                "item_name TEXT NOT NULL, " +
+                "quantity INTEGER NOT NULL, " +
+                "price INTEGER NOT NULL, " +
+                "subtotal INTEGER NOT NULL, " +
+                "FOREIGN KEY(order_id) REFERENCES orders(id))");
+        db.execSQL("INSERT INTO order_items_new (id, order_id, menu_item_id, item_name, quantity, " +
+                "price, subtotal) " +
+                "SELECT id, order_id, menu_item_id, item_name, quantity, 0, 0 FROM order_items");
+        copyAsPaise(db, "order_items", "price", "subtotal");
+        db.execSQL("DROP TABLE order_items");
+        db.execSQL("ALTER TABLE order_items_new RENAME TO order_items");
+        db.execSQL("CREATE INDEX idx_order_items_order_id ON order_items(order_id)");
+    }
+
+    // Rounded in Java rather than with SQL ROUND() so each amount lands on the same paisa
+    // the old "%.2f" display showed (SQL gives ROUND(1.005 * 100) = 100, the UI showed 1.01).
+    private static void copyAsPaise(SQLiteDatabase db, String table, String... columns) {
+        StringBuilder update = new StringBuilder("UPDATE ").append(table).append("_new SET ");
+        for (int i = 0; i < columns.length; i++) {
+            update.append(i == 0 ? "" : ", ").append(columns[i]).append(" = ?");
+        }
+        update.append(" WHERE id = ?");
+        SQLiteStatement statement = db.compileStatement(update.toString());
+
+        Cursor cursor = db.rawQuery("SELECT id, " + TextUtils.join(", ", columns) + " FROM " + table, null);
+        try {
+            while (cursor.moveToNext()) {
+                statement.clearBindings();
+                for (int i = 0; i < columns.length; i++) {
+                    statement.bindLong(i + 1, toPaise(cursor.getDouble(i + 1)));
+                }
+                statement.bindLong(columns.length + 1, cursor.getLong(0));
+                statement.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            statement.close();
+        }
+    }
+
+    /**
+     * Reads an order date SQLite could not: one written with a locale's own digits (Devanagari
+     * for Hindi and Marathi, Bengali, ...) or without seconds. Failing that the invoice number,
+     * "INV" then the yyyyMMdd it was issued on, still gives the day, taken as local midnight.
+     * Anything else is {@link #UNKNOWN_ORDER_DATE}.
+     */
+    static long parseLegacyOrderDate(String orderDate, String invoiceNumber) {
+        String date = toAsciiDigits(orderDate);
+        if (date != null) {
+            date = date.trim().replace('T', ' ');
+            for (String pattern : LEGACY_DATE_PATTERNS) {
+                Date parsed = parseExactly(pattern, date);
+                if (parsed != null) {
+                    return parsed.getTime();
+                }
+            }
+        }
+        String invoice = toAsciiDigits(invoiceNumber);
+        if (invoice != null && invoice.length() >= 11 && invoice.startsWith("INV")) {
+            Date parsed = parseExactly("yyyyMMdd", invoice.substring(3, 11));
+            if (parsed != null) {
+                return parsed.getTime();
+            }
+        }
+        return UNKNOWN_ORDER_DATE;
+    }
+
+    private static Date parseExactly(String pattern, String text) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setLenient(false);
+        ParsePosition position = new ParsePosition(0);
+        Date parsed = format.parse(text, position);
+        return position.getIndex() == text.length() ? parsed : null;
+    }
+
+    private static String toAsciiDigits(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            sb.append(Character.isDigit(c) ? (char) ('0' + Character.digit(c, 10)) : c);
+        }
+        return sb.toString();
+    }
+
+    private static long toPaise(double rupees) {
+        return BigDecimal.valueOf(rupees)
+                .setScale(2, RoundingMode.HALF_UP)
+                .movePointRight(2)
+                .longValueExact();
+    }
+
+    private static void createDailySalesTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE daily_sales (" +
+                "day INTEGER PRIMARY KEY, " +
+                "order_count INTEGER NOT NULL DEFAULT 0, " +
+                "subtotal INTEGER NOT NULL DEFAULT 0, " +
+                "tax INTEGER NOT NULL DEFAULT 0, " +
+                "gross INTEGER NOT NULL DEFAULT 0, " +
+                "min_total INTEGER, " +
+                "max_total INTEGER)");
+        db.execSQL("CREATE TABLE daily_sales_by_payment (" +
+                "day INTEGER NOT NULL, " +
+                "payment_method TEXT NOT NULL, " +
+                "order_count INTEGER NOT NULL DEFAULT 0, " +
+                "gross INTEGER NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY (day, payment_method))");
+    }
+
+    // Each day's numbering continues from the highest invoice already issued that day.
+    private static void createInvoiceSequence(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE invoice_sequence (" +
+                "day INTEGER PRIMARY KEY, " +
+                "last_value INTEGER NOT NULL)");
+        db.execSQL("INSERT INTO invoice_sequence (day, last_value) " +
+                "SELECT CAST(substr(invoice_number, 4, 8) AS INTEGER), " +
+                "MAX(CAST(substr(invoice_number, 12) AS INTEGER)) " +
+                "FROM orders " +
+                "WHERE invoice_number GLOB 'INV[0-9][0-9][0-9][0-9][0-9][0-9][0-9][0-9][0-9]*' " +
+                "GROUP BY 1");
+    }
+
+    private static void createDocumentsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE documents (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "kind TEXT NOT NULL, " +
+                "doc_key TEXT NOT NULL, " +
+                "path TEXT NOT NULL, " +
+                "archive TEXT, " +
+                "size INTEGER NOT NULL, " +
+                "created_at INTEGER NOT NULL, " +
+                "last_access INTEGER NOT NULL, " +
+                "UNIQUE (kind, doc_key))");
+        db.execSQL("CREATE INDEX idx_documents_last_access ON documents(last_access)");
+    }
+
+    // Items used to store the category as the label shown when they were saved, in English or
+    // Hindi. Both spellings of each built-in label map to its id; any other text becomes a
+    // category of its own so no item is lost.
+    private static void moveMenuToCategoryIds(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE categories (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "code TEXT NOT NULL UNIQUE, " +
+                "sort_order INTEGER NOT NULL, " +
+                "item_count INTEGER NOT NULL DEFAULT 0)");
+        String[] builtInCodes = {"appetizer", "main_course", "bread", "beverage", "dessert"};
+        for (int i = 0; i < builtInCodes.length; i++) {
+            db.execSQL("INSERT INTO categories (id, code, sort_order) VALUES (?, ?, ?)",
+                    new Object[]{i + 1, builtInCodes[i], i + 1});
+        }
+        db.execSQL("CREATE TEMP TABLE legacy_category_names (name TEXT PRIMARY KEY, category_id INTEGER NOT NULL)");
+        Object[][] names = {
+                {"Appetizer", 1}, {"स्टार्टर", 1},
+                {"Main Course", 2}, {"मुख्य व्यंजन", 2},
+                {"Bread", 3}, {"रोटी", 3},
+                {"Beverage", 4}, {"पेय पदार्थ", 4},
+                {"Dessert", 5}, {"मिठाई", 5}
+        };
+        for (Object[] name : names) {
+            db.execSQL("INSERT INTO legacy_category_names (name, category_id) VALUES (?, ?)", name);
+        }
+        db.execSQL("INSERT OR IGNORE INTO categories (code, sort_order) " +
+                "SELECT DISTINCT category, 100 FROM menu_items " +
+                "WHERE category NOT IN (SELECT name FROM legacy_category_names)");
+        db.execSQL("INSERT OR IGNORE INTO legacy_category_names (name, category_id) " +
+                "SELECT code, id FROM categories");
+
+        db.execSQL("CREATE TABLE menu_items_new (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "name TEXT NOT NULL, " +
+                "description TEXT, " +
+                "category_id INTEGER NOT NULL REFERENCES categories(id), " +
+                "price INTEGER NOT NULL)");
+        db.execSQL("INSERT INTO menu_items_new (id, name, description, category_id, price) " +
+                "SELECT m.id, m.name, m.description, n.category_id, m.price " +
+                "FROM menu_items m JOIN legacy_category_names n ON n.name = m.category");
+        db.execSQL("DROP TABLE menu_items");
+        db.execSQL("ALTER TABLE menu_items_new RENAME TO menu_items");
+        db.execSQL("CREATE INDEX idx_menu_items_category_id ON menu_items(category_id, name)");
+        db.execSQL("DROP TABLE legacy_category_names");
+
+        // Each category row carries its item count, so the category tabs never count the menu.
+        db.execSQL("CREATE TRIGGER menu_items_count_insert AFTER INSERT ON menu_items BEGIN " +
+                "UPDATE categories SET item_count = item_count + 1 WHERE id = NEW.category_id; " +
+                "END");
+        db.execSQL("CREATE TRIGGER menu_items_count_delete AFTER DELETE ON menu_items BEGIN " +
+                "UPDATE categories SET item_count = item_count - 1 WHERE id = OLD.category_id; " +
+                "END");
+        db.execSQL("CREATE TRIGGER menu_items_count_update AFTER UPDATE OF category_id ON menu_items " +
+                "WHEN OLD.category_id != NEW.category_id BEGIN " +
+                "UPDATE categories SET item_count = item_count - 1 WHERE id = OLD.category_id; " +
+                "UPDATE categories SET item_count = item_count + 1 WHERE id = NEW.category_id; " +
+                "END");
+        db.execSQL("UPDATE categories SET item_count = " +
+                "(SELECT COUNT(*) FROM menu_items WHERE category_id = categories.id)");
+    }
+
+    // Phone search matches on digits alone, so "+91 98765-43210" and "9876543210" are both
+    // found by "98765". Replaces the index on the phone as typed.
+    private static void indexPhoneDigits(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE orders ADD COLUMN phone_digits TEXT");
+        SQLiteStatement update = db.compileStatement("UPDATE orders SET phone_digits = ? WHERE id = ?");
+        Cursor cursor = db.rawQuery("SELECT id, customer_phone FROM orders WHERE customer_phone IS NOT NULL", null);
+        try {
+            while (cursor.moveToNext()) {
+                String phone = toAsciiDigits(cursor.getString(1));
+                StringBuilder digits = new StringBuilder(phone.length());
+                for (int i = 0; i < phone.length(); i++) {
+                    char c = phone.charAt(i);
+                    if (c >= '0' && c <= '9') {
+                        digits.append(c);
+                    }
+                }
+                if (digits.length() == 0) {
+                    continue;
+                }
+                update.bindString(1, digits.toString());
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+        db.execSQL("DROP INDEX IF EXISTS idx_orders_customer_phone");
+        db.execSQL("CREATE INDEX idx_orders_phone_digits ON orders(phone_digits, id DESC)");
+    }
+
+    // Replaces the plain order_id index, which is a prefix of this one, so the item sales
+    // report reads order lines from the index alone.
+    private static void coverOrderItemsForSales(SQLiteDatabase db) {
+        db.execSQL("DROP INDEX IF EXISTS idx_order_items_order_id");
+        db.execSQL("CREATE INDEX idx_order_items_sales ON order_items(order_id, menu_item_id, " +
+                "quantity, subtotal, item_name)");
+    }
+}
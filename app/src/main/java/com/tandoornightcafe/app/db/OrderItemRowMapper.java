@@ -0,0 +1,38 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+
+import com.tandoornightcafe.app.model.OrderItem;
+
+/** Maps order item rows with column indices resolved once per cursor. */
+final class OrderItemRowMapper {
+    private final int id;
+    private final int orderId;
+    private final int menuItemId;
+    private final int itemName;
+    private final int quantity;
+    private final int price;
+    private final int subtotal;
+
+    OrderItemRowMapper(Cursor cursor) {
+        id = cursor.getColumnIndexOrThrow("id");
+        orderId = cursor.getColumnIndexOrThrow("order_id");
+        menuItemId = cursor.getColumnIndexOrThrow("menu_item_id");
+        itemName = cursor.getColumnIndexOrThrow("item_name");
+        quantity = cursor.getColumnIndexOrThrow("quantity");
+        price = cursor.getColumnIndexOrThrow("price");
+        subtotal = cursor.getColumnIndexOrThrow("subtotal");
+    }
+
+    OrderItem map(Cursor cursor) {
+        OrderItem item = new OrderItem();
+        item.setId(cursor.getLong(id));
+        item.setOrderId(cursor.getLong(orderId));
+        item.setMenuItemId(cursor.getLong(menuItemId));
+        item.setItemName(cursor.getString(itemName));
+        item.setQuantity(cursor.getInt(quantity));
+        item.setPrice(cursor.getLong(price));
+        item.setSubtotal(cursor.getLong(subtotal));
+        return item;
+    }
+}
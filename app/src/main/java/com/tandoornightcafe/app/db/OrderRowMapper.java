@@ -0,0 +1,55 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+
+import com.tandoornightcafe.app.model.Order;
+
+/**
+ * Maps order rows with column indices resolved once per cursor. Columns missing from the
+ * projection are skipped, so a query can select only {@link #LIST_COLUMNS} and still map.
+ */
+final class OrderRowMapper {
+    /** What an order history row shows, plus id and order_date for keyset paging. */
+    static final String[] LIST_COLUMNS = {
+            "id", "invoice_number", "order_date", "customer_name", "total", "status"
+    };
+
+    private final int id;
+    private final int customerName;
+    private final int customerPhone;
+    private final int subtotal;
+    private final int tax;
+    private final int total;
+    private final int paymentMethod;
+    private final int status;
+    private final int invoiceNumber;
+    private final int orderDate;
+
+    OrderRowMapper(Cursor cursor) {
+        id = cursor.getColumnIndexOrThrow("id");
+        customerName = cursor.getColumnIndex("customer_name");
+        customerPhone = cursor.getColumnIndex("customer_phone");
+        subtotal = cursor.getColumnIndex("subtotal");
+        tax = cursor.getColumnIndex("tax");
+        total = cursor.getColumnIndex("total");
+        paymentMethod = cursor.getColumnIndex("payment_method");
+        status = cursor.getColumnIndex("status");
+        invoiceNumber = cursor.getColumnIndex("invoice_number");
+        orderDate = cursor.getColumnIndex("order_date");
+    }
+
+    Order map(Cursor cursor) {
+        Order order = new Order();
+        order.setId(cursor.getLong(id));
+        if (customerName >= 0) order.setCustomerName(cursor.getString(customerName));
+        if (customerPhone >= 0) order.setCustomerPhone(cursor.getString(customerPhone));
+        if (subtotal >= 0) order.setSubtotal(cursor.getLong(subtotal));
+        if (tax >= 0) order.setTax(cursor.getLong(tax));
+        if (total >= 0) order.setTotal(cursor.getLong(total));
+        if (paymentMethod >= 0) order.setPaymentMethod(cursor.getString(paymentMethod));
+        if (status >= 0) order.setStatus(cursor.getString(status));
+        if (invoiceNumber >= 0) order.setInvoiceNumber(cursor.getString(invoiceNumber));
+        if (orderDate >= 0) order.setOrderDate(cursor.getLong(orderDate));
+        return order;
+    }
+}
@@ -0,0 +1,184 @@
+package com.tandoornightcafe.app.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.util.SearchNormalizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Order lookup for the history screen. The text typed decides the access path:
+ * <ul>
+ *     <li>an invoice number ("INV2024...") is an exact match on the unique invoice index;</li>
+ *     <li>digits, with any + - or spaces, are a phone prefix: a range scan over
+ *     (phone_digits, id DESC), the phone with everything but its digits removed;</li>
+ *     <li>anything else is matched word by word against customer names in the order_search
+ *     FTS4 table, keyed by {@link SearchNormalizer} so Devanagari and Hinglish spellings meet.</li>
+ * </ul>
+ * Every path pages with a keyset taken from the last row of the previous page, so a page
+ * costs the same however deep it is.
+ */
+final class OrderSearchIndex {
+    static final String TABLE_ORDER_SEARCH = "order_search";
+
+    /** {@link OrderRowMapper#LIST_COLUMNS} plus the phone, whose digits phone paging is keyed on. */
+    static final String[] SEARCH_COLUMNS = {
+            "id", "invoice_number", "order_date", "customer_name", "customer_phone", "total", "status"
+    };
+
+    private static final String INVOICE_PREFIX = "INV";
+
+    private OrderSearchIndex() {
+    }
+
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_ORDER_SEARCH);
+        SQLiteStatement insert = compileInsert(db);
+        Cursor cursor = db.rawQuery("SELECT id, customer_name FROM orders", null);
+        try {
+            while (cursor.moveToNext()) {
+                put(insert, cursor.getLong(0), cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+            insert.close();
+        }
+    }
+
+    /** The statement {@link #put} runs; DBHelper compiles it once and keeps it. */
+    static SQLiteStatement compileInsert(SQLiteDatabase db) {
+        return db.compileStatement("INSERT INTO " + TABLE_ORDER_SEARCH +
+                " (docid, customer_name) VALUES (?, ?)");
+    }
+
+    /** The phone's digits alone, as stored in phone_digits, or null when it has none. */
+    static String phoneDigits(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (Character.isDigit(c)) {
+                digits.append((char) ('0' + Character.digit(c, 10)));
+            }
+        }
+        return digits.length() > 0 ? digits.toString() : null;
+    }
+
+    /** Indexes a new order. Callers must be in the order's write transaction. */
+    static void put(SQLiteStatement insert, long orderId, String customerName) {
+        insert.bindLong(1, orderId);
+        insert.bindString(2, SearchNormalizer.normalize(customerName));
+        insert.executeInsert();
+    }
+
+    static List<Order> search(SQLiteDatabase db, String text, Order after, int limit) {
+        String query = text.trim();
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (isInvoiceNumber(query)) {
+            return after != null ? new ArrayList<>() : byInvoice(db, query.toUpperCase(Locale.US));
+        }
+        if (isPhonePrefix(query)) {
+            return byPhonePrefix(db, phoneDigits(query), after, limit);
+        }
+        List<String> matchQueries = SearchNormalizer.toMatchQueries(query);
+        return matchQueries.isEmpty() ? new ArrayList<>() : byName(db, matchQueries, after, limit);
+    }
+
+    private static List<Order> byInvoice(SQLiteDatabase db, String invoiceNumber) {
+        return map(db.query("orders", SEARCH_COLUMNS, "invoice_number = ?",
+                new String[]{invoiceNumber}, null, null, null));
+    }
+
+    // Ordered by phone digits, then newest first within a phone. The lower bound moves up to
+    // the last phone seen, so a page only rescans that one customer's earlier rows.
+    private static List<Order> byPhonePrefix(SQLiteDatabase db, String prefix, Order after, int limit) {
+        String upper = prefix.substring(0, prefix.length() - 1)
+                + (char) (prefix.charAt(prefix.length() - 1) + 1);
+        String afterDigits = after != null ? phoneDigits(after.getCustomerPhone()) : null;
+        Cursor cursor;
+        if (afterDigits == null) {
+            cursor = db.query("orders", SEARCH_COLUMNS,
+                    "phone_digits >= ? AND phone_digits < ?", new String[]{prefix, upper},
+                    null, null, "phone_digits, id DESC", String.valueOf(limit));
+        } else {
+            cursor = db.query("orders", SEARCH_COLUMNS,
+                    "phone_digits >= ? AND phone_digits < ? AND (phone_digits > ? OR id < ?)",
+                    new String[]{afterDigits, upper, afterDigits, String.valueOf(after.getId())},
+                    null, null, "phone_digits, id DESC", String.valueOf(limit));
+        }
+        return map(cursor);
+    }
+
+    // FTS4 walks its doclists in docid order, so "newest first" and the docid < ? keyset are
+    // answered inside the index; only the page's rows are then fetched from orders. Each
+    // reading of the text is its own MATCH, and the UNION keeps the page in docid order.
+    private static List<Order> byName(SQLiteDatabase db, List<String> matchQueries, Order after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < SEARCH_COLUMNS.length; i++) {
+            sql.append(i == 0 ? "" : ", ").append("o.").append(SEARCH_COLUMNS[i])
+                    .append(" AS ").append(SEARCH_COLUMNS[i]);
+        }
+        sql.append(" FROM orders o JOIN (");
+        List<String> args = new ArrayList<>(matchQueries.size() * 2 + 1);
+        for (int i = 0; i < matchQueries.size(); i++) {
+            sql.append(i == 0 ? "" : " UNION ").append("SELECT docid FROM ").append(TABLE_ORDER_SEARCH)
+                    .append(" WHERE ").append(TABLE_ORDER_SEARCH).append(" MATCH ?");
+            args.add(matchQueries.get(i));
+            if (after != null) {
+                sql.append(" AND docid < ?");
+                args.add(String.valueOf(after.getId()));
+            }
+        }
+        sql.append(" ORDER BY docid DESC LIMIT ?) s ON o.id = s.docid ORDER BY o.id DESC");
+        args.add(String.valueOf(limit));
+        return map(db.rawQuery(sql.toString(), args.toArray(new String[0])));
+    }
+
+    private static List<Order> map(Cursor cursor) {
+        List<Order> orders = new ArrayList<>(cursor.getCount());
+        try {
+            OrderRowMapper mapper = new OrderRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                orders.add(mapper.map(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return orders;
+    }
+
+    private static boolean isInvoiceNumber(String query) {
+        if (query.length() <= INVOICE_PREFIX.length()
+                || !query.regionMatches(true, 0, INVOICE_PREFIX, 0, INVOICE_PREFIX.length())) {
+            return false;
+        }
+        for (int i = INVOICE_PREFIX.length(); i < query.length(); i++) {
+            if (!Character.isDigit(query.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPhonePrefix(String query) {
+        boolean digit = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (Character.isDigit(c)) {
+                digit = true;
+            } else if (c != '+' && c != ' ' && c != '-') {
+                return false;
+            }
+        }
+        return digit;
+    }
+}
@@ -0,0 +1,94 @@
+package com.tandoornightcafe.app.db;
+
+import android.content.Context;
+
+import androidx.annotation.MainThread;
+
+import com.tandoornightcafe.app.model.AppSettings;
+import com.tandoornightcafe.app.util.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link AppSettings}. The snapshot is read from SQLite once, on the writer
+ * thread when the application starts, and afterwards only replaced by {@link #update}, which
+ * persists on the writer thread and then swaps the snapshot and notifies listeners on the
+ * main thread. {@link #get} returns null until the first snapshot has been read.
+ */
+public class SettingsStore {
+    public interface Listener {
+        void onSettingsChanged(AppSettings settings);
+    }
+
+    private final DBHelper dbHelper;
+    private final AppExecutors executors;
+    private final AtomicReference<AppSettings> current = new AtomicReference<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Main thread only.
+    private final List<Runnable> pendingLoad = new ArrayList<>();
+    private boolean loaded;
+
+    public SettingsStore(Context context) {
+        this.dbHelper = DBHelper.getInstance(context);
+        this.executors = AppExecutors.getInstance();
+    }
+
+    /** Reads the snapshot on the writer thread, ahead of any {@link #update}. */
+    public void load() {
+        executors.dbWriter().execute(() -> {
+            current.set(AppSettings.from(dbHelper.getAllSettings()));
+            executors.mainThread().execute(() -> {
+                loaded = true;
+                for (Runnable action : pendingLoad) {
+                    action.run();
+                }
+                pendingLoad.clear();
+            });
+        });
+    }
+
+    /** Runs {@code action} on the main thread once the first snapshot is in, right away if it is. */
+    @MainThread
+    public void whenLoaded(Runnable action) {
+        if (loaded) {
+            action.run();
+        } else {
+            pendingLoad.add(action);
+        }
+    }
+
+    public AppSettings get() {
+        return current.get();
+    }
+
+    public void update(Map<String, String> changes, CafeRepository.Callback<AppSettings> callback) {
+        Map<String, String> copy = new HashMap<>(changes);
+        executors.dbWriter().execute(() -> {
+            dbHelper.setSettings(copy);
+            // Only the writer thread replaces the snapshot, so read-modify-set cannot race.
+            AppSettings published = current.get().with(copy);
+            current.set(published);
+            executors.mainThread().execute(() -> {
+                for (Listener listener : listeners) {
+                    listener.onSettingsChanged(published);
+                }
+                if (callback != null) {
+                    callback.onResult(published);
+                }
+            });
+        });
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,118 @@
+package com.tandoornightcafe.app.model;
+
+import com.tandoornightcafe.app.util.Money;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of every row in the settings table, parsed once. Changing a value
+ * means building a new snapshot with {@link #with(Map)}.
+ */
+public final class AppSettings {
+    public static final String KEY_LANGUAGE = "language";
+    public static final String KEY_TAX_RATE = "tax_rate";
+    public static final String KEY_CURRENCY_SYMBOL = "currency_symbol";
+    public static final String KEY_RESTAURANT_NAME = "restaurant_name";
+    public static final String KEY_RESTAURANT_ADDRESS = "restaurant_address";
+    public static final String KEY_RESTAURANT_PHONE = "restaurant_phone";
+    public static final String KEY_DOCUMENT_QUOTA_MB = "document_quota_mb";
+    public static final String KEY_RECEIPT_FORMAT = "receipt_format";
+
+    public static final String RECEIPT_FORMAT_PDF = "pdf";
+    public static final String RECEIPT_FORMAT_ESCPOS_58 = "escpos_58";
+    public static final String RECEIPT_FORMAT_ESCPOS_80 = "escpos_80";
+
+    private static final String DEFAULT_LANGUAGE = "en";
+    private static final double DEFAULT_TAX_RATE = 5.0;
+    private static final long DEFAULT_DOCUMENT_QUOTA_MB = 256;
+
+    private final Map<String, String> values;
+    private final String language;
+    private final double taxRate;
+    private final int taxBasisPoints;
+    private final long documentQuotaBytes;
+
+    private AppSettings(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(values);
+        String lang = values.get(KEY_LANGUAGE);
+        this.language = lang == null || lang.isEmpty() ? DEFAULT_LANGUAGE : lang;
+        this.taxRate = parseTaxRate(values.get(KEY_TAX_RATE));
+        this.taxBasisPoints = Money.toBasisPoints(taxRate);
+        this.documentQuotaBytes = parseQuotaMb(values.get(KEY_DOCUMENT_QUOTA_MB)) * 1024 * 1024;
+    }
+
+    public static AppSettings from(Map<String, String> values) {
+        return new AppSettings(new HashMap<>(values));
+    }
+
+    public AppSettings with(Map<String, String> changes) {
+        Map<String, String> merged = new HashMap<>(values);
+        merged.putAll(changes);
+        return new AppSettings(merged);
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public double getTaxRate() {
+        return taxRate;
+    }
+
+    public int getTaxBasisPoints() {
+        return taxBasisPoints;
+    }
+
+    public String getCurrencySymbol() {
+        return values.get(KEY_CURRENCY_SYMBOL);
+    }
+
+    public String getRestaurantName() {
+        return values.get(KEY_RESTAURANT_NAME);
+    }
+
+    public String getRestaurantAddress() {
+        return values.get(KEY_RESTAURANT_ADDRESS);
+    }
+
+    public String getRestaurantPhone() {
+        return values.get(KEY_RESTAURANT_PHONE);
+    }
+
+    public String getReceiptFormat() {
+        String format = values.get(KEY_RECEIPT_FORMAT);
+        return format == null || format.isEmpty() ? RECEIPT_FORMAT_PDF : format;
+    }
+
+    public long getDocumentQuotaBytes() {
+        return documentQuotaBytes;
+    }
+
+    private static long parseQuotaMb(String value) {
+        if (value == null) {
+            return DEFAULT_DOCUMENT_QUOTA_MB;
+        }
+        try {
+            return Math.max(1, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return DEFAULT_DOCUMENT_QUOTA_MB;
+        }
+    }
+
+    private static double parseTaxRate(String value) {
+        if (value == null) {
+            return DEFAULT_TAX_RATE;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return DEFAULT_TAX_RATE;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.tandoornightcafe.app.model;
+
+import com.tandoornightcafe.app.util.Money;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The cart being built on the order screen. Lines are keyed by menu item id and kept in the
+ * order they were first added; the subtotal is adjusted on every change and tax and total
+ * follow from it, so all three are read without walking the lines.
+ */
+public final class Cart {
+    private final Map<Long, CartItem> lines = new LinkedHashMap<>();
+    private int taxBasisPoints;
+    private long subtotal;
+    private long tax;
+    private List<CartItem> items;
+
+    public Cart(int taxBasisPoints) {
+        this.taxBasisPoints = taxBasisPoints;
+    }
+
+    /** Adds one of the item, as a new line or one more on its existing line. */
+    public void add(MenuItem menuItem) {
+        CartItem line = lines.get(menuItem.getId());
+        put(line == null ? new CartItem(menuItem, 1) : line.withQuantity(line.getQuantity() + 1));
+    }
+
+    public void setQuantity(long menuItemId, int quantity) {
+        CartItem line = lines.get(menuItemId);
+        if (line != null && quantity != line.getQuantity()) {
+            put(line.withQuantity(quantity));
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the line's current quantity, never going below one. Taps are
+     * applied to the cart rather than to the row that was on screen, so quick repeated taps
+     * all count even before the list has been rebound.
+     */
+    public void changeQuantity(long menuItemId, int delta) {
+        CartItem line = lines.get(menuItemId);
+        if (line != null) {
+            setQuantity(menuItemId, Math.max(1, line.getQuantity() + delta));
+        }
+    }
+
+    public void remove(long menuItemId) {
+        CartItem line = lines.remove(menuItemId);
+        if (line != null) {
+            setSubtotal(subtotal - line.getSubtotal());
+        }
+    }
+
+    public void setTaxBasisPoints(int taxBasisPoints) {
+        this.taxBasisPoints = taxBasisPoints;
+        setSubtotal(subtotal);
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
+    /** The lines in display order; the list is immutable and replaced after every change. */
+    public List<CartItem> getItems() {
+        if (items == null) {
+            items = Collections.unmodifiableList(new ArrayList<>(lines.values()));
+        }
+        return items;
+    }
+
+    public long getSubtotal() {
+        return subtotal;
+    }
+
+    public long getTax() {
+        return tax;
+    }
+
+    public long getTotal() {
+        return subtotal + tax;
+    }
+
+    // Replacing the value of an existing key keeps its place in the LinkedHashMap.
+    private void put(CartItem line) {
+        CartItem previous = lines.put(line.getMenuItem().getId(), line);
+        long delta = line.getSubtotal() - (previous != null ? previous.getSubtotal() : 0);
+        setSubtotal(subtotal + delta);
+    }
+
+    private void setSubtotal(long subtotal) {
+        this.subtotal = subtotal;
+        this.tax = Money.percentOf(subtotal, taxBasisPoints);
+        this.items = null;
+    }
+}
@@ -1,8 +1,12 @@
 package com.tandoornightcafe.app.model;
 
-public class CartItem {
-    private MenuItem menuItem;
-    private int quantity;
+/**
+ * One cart line. Immutable, so the list the cart adapter is diffing against never changes
+ * underneath it; a quantity change replaces the line with {@link #withQuantity(int)}.
+ */
+public final class CartItem {
+    private final MenuItem menuItem;
+    private final int quantity;
 
     public CartItem(MenuItem menuItem, int quantity) {
         this.menuItem = menuItem;
@@ -13,19 +17,15 @@ public class CartItem {
         return menuItem;
     }
 
-    public void setMenuItem(MenuItem menuItem) {
-        this.menuItem = menuItem;
-    }
-
     public int getQuantity() {
         return quantity;
     }
 
-    public void setQuantity(int quantity) {
-        this.quantity = quantity;
+    public CartItem withQuantity(int quantity) {
+        return new CartItem(menuItem, quantity);
     }
 
-    public double getSubtotal() {
+    public long getSubtotal() {
         return menuItem.getPrice() * quantity;
     }
 }
@@ -0,0 +1,112 @@
+package com.tandoornightcafe.app.model;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cart as it stood when the customer moved to billing: names and prices are captured
+ * at that moment, so a menu edit in between cannot change what is charged. Lines are held
+ * in parallel primitive arrays to keep the parcel small.
+ */
+public final class CartSnapshot implements Parcelable {
+    private final long[] menuItemIds;
+    private final String[] names;
+    private final long[] prices;
+    private final int[] quantities;
+    private final long subtotal;
+    private final long tax;
+    private final long total;
+
+    private CartSnapshot(long[] menuItemIds, String[] names, long[] prices, int[] quantities,
+                         long subtotal, long tax, long total) {
+        this.menuItemIds = menuItemIds;
+        this.names = names;
+        this.prices = prices;
+        this.quantities = quantities;
+        this.subtotal = subtotal;
+        this.tax = tax;
+        this.total = total;
+    }
+
+    public static CartSnapshot of(Cart cart) {
+        List<CartItem> cartItems = cart.getItems();
+        int size = cartItems.size();
+        long[] menuItemIds = new long[size];
+        String[] names = new String[size];
+        long[] prices = new long[size];
+        int[] quantities = new int[size];
+        for (int i = 0; i < size; i++) {
+            CartItem cartItem = cartItems.get(i);
+            MenuItem menuItem = cartItem.getMenuItem();
+            menuItemIds[i] = menuItem.getId();
+            names[i] = menuItem.getName();
+            prices[i] = menuItem.getPrice();
+            quantities[i] = cartItem.getQuantity();
+        }
+        return new CartSnapshot(menuItemIds, names, prices, quantities,
+                cart.getSubtotal(), cart.getTax(), cart.getTotal());
+    }
+
+    public List<OrderItem> toOrderItems() {
+        List<OrderItem> orderItems = new ArrayList<>(menuItemIds.length);
+        for (int i = 0; i < menuItemIds.length; i++) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setMenuItemId(menuItemIds[i]);
+            orderItem.setItemName(names[i]);
+            orderItem.setQuantity(quantities[i]);
+            orderItem.setPrice(prices[i]);
+            orderItem.setSubtotal(prices[i] * quantities[i]);
+            orderItems.add(orderItem);
+        }
+        return orderItems;
+    }
+
+    public int size() {
+        return menuItemIds.length;
+    }
+
+    public long getSubtotal() {
+        return subtotal;
+    }
+
+    public long getTax() {
+        return tax;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLongArray(menuItemIds);
+        dest.writeStringArray(names);
+        dest.writeLongArray(prices);
+        dest.writeIntArray(quantities);
+        dest.writeLong(subtotal);
+        dest.writeLong(tax);
+        dest.writeLong(total);
+    }
+
+    public static final Creator<CartSnapshot> CREATOR = new Creator<CartSnapshot>() {
+        @Override
+        public CartSnapshot createFromParcel(Parcel source) {
+            return new CartSnapshot(source.createLongArray(), source.createStringArray(),
+                    source.createLongArray(), source.createIntArray(),
+                    source.readLong(), source.readLong(), source.readLong());
+        }
+
+        @Override
+        public CartSnapshot[] newArray(int size) {
+            return new CartSnapshot[size];
+        }
+    };
+}
@@ -0,0 +1,36 @@
+package com.tandoornightcafe.app.model;
+
+/**
+ * A menu category. Items refer to it by id; {@link #getCode()} is a fixed, untranslated key
+ * the UI maps to a localized label, so the same category shows in every language.
+ */
+public final class Category {
+    public static final String CODE_APPETIZER = "appetizer";
+    public static final String CODE_MAIN_COURSE = "main_course";
+    public static final String CODE_BREAD = "bread";
+    public static final String CODE_BEVERAGE = "beverage";
+    public static final String CODE_DESSERT = "dessert";
+
+    private final long id;
+    private final String code;
+    private final int itemCount;
+
+    public Category(long id, String code, int itemCount) {
+        this.id = id;
+        this.code = code;
+        this.itemCount = itemCount;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /** Menu items in this category, kept up to date by the database. */
+    public int getItemCount() {
+        return itemCount;
+    }
+}
@@ -0,0 +1,34 @@
+package com.tandoornightcafe.app.model;
+
+/** Quantity sold and revenue for one menu item over a report's date range. */
+public final class ItemSales {
+    private final long menuItemId;
+    private final String itemName;
+    private final int quantity;
+    private final long revenue;
+
+    public ItemSales(long menuItemId, String itemName, int quantity, long revenue) {
+        this.menuItemId = menuItemId;
+        this.itemName = itemName;
+        this.quantity = quantity;
+        this.revenue = revenue;
+    }
+
+    public long getMenuItemId() {
+        return menuItemId;
+    }
+
+    /** The name on the most recent order, so renamed or deleted items still read sensibly. */
+    public String getItemName() {
+        return itemName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /** Pre-tax revenue in paise. */
+    public long getRevenue() {
+        return revenue;
+    }
+}
@@ -4,17 +4,17 @@ public class MenuItem {
     private long id;
     private String name;
     private String description;
-    private String category;
-    private double price;
+    private long categoryId;
+    private long price;
 
     public MenuItem() {
     }
 
-    public MenuItem(long id, String name, String description, String category, double price) {
+    public MenuItem(long id, String name, String description, long categoryId, long price) {
         this.id = id;
         this.name = name;
         this.description = description;
-        this.category = category;
+        this.categoryId = categoryId;
         this.price = price;
     }
 
@@ -42,19 +42,19 @@ public class MenuItem {
         this.description = description;
     }
 
-    public String getCategory() {
-        return category;
+    public long getCategoryId() {
+        return categoryId;
     }
 
-    public void setCategory(String category) {
-        this.category = category;
+    public void setCategoryId(long categoryId) {
+        this.categoryId = categoryId;
     }
 
-    public double getPrice() {
+    public long getPrice() {
         return price;
     }
 
-    public void setPrice(double price) {
+    public void setPrice(long price) {
         this.price = price;
     }
 }
@@ -1,25 +1,23 @@
 package com.tandoornightcafe.app.model;
 
-import java.util.Date;
-
 public class Order {
     private long id;
     private String customerName;
     private String customerPhone;
-    private double subtotal;
-    private double tax;
-    private double total;
+    private long subtotal;
+    private long tax;
+    private long total;
     private String paymentMethod;
     private String status;
-    private Date orderDate;
+    private long orderDate;
     private String invoiceNumber;
 
     public Order() {
     }
 
-    public Order(long id, String customerName, String customerPhone, double subtotal, 
-                 double tax, double total, String paymentMethod, String status, 
-                 Date orderDate, String invoiceNumber) {
+    public Order(long id, String customerName, String customerPhone, long subtotal, 
+                 long tax, long total, String paymentMethod, String status, 
+                 long orderDate, String invoiceNumber) {
         this.id = id;
         this.customerName = customerName;
         this.customerPhone = customerPhone;
@@ -56,27 +54,27 @@ public class Order {
         this.customerPhone = customerPhone;
     }
 
-    public double getSubtotal() {
+    public long getSubtotal() {
         return subtotal;
     }
 
-    public void setSubtotal(double subtotal) {
+    public void setSubtotal(long subtotal) {
         this.subtotal = subtotal;
     }
 
-    public double getTax() {
+    public long getTax() {
         return tax;
     }
 
-    public void setTax(double tax) {
+    public void setTax(long tax) {
         this.tax = tax;
     }
 
-    public double getTotal() {
+    public long getTotal() {
         return total;
     }
 
-    public void setTotal(double total) {
+    public void setTotal(long total) {
         this.total = total;
     }
 
@@ -96,11 +94,11 @@ public class Order {
         this.status = status;
     }
 
-    public Date getOrderDate() {
+    public long getOrderDate() {
         return orderDate;
     }
 
-    public void setOrderDate(Date orderDate) {
+    public void setOrderDate(long orderDate) {
         this.orderDate = orderDate;
     }
 
@@ -6,14 +6,14 @@ public class OrderItem {
     private long menuItemId;
     private String itemName;
     private int quantity;
-    private double price;
-    private double subtotal;
+    private long price;
+    private long subtotal;
 
     public OrderItem() {
     }
 
     public OrderItem(long id, long orderId, long menuItemId, String itemName, 
-                    int quantity, double price, double subtotal) {
+                    int quantity, long price, long subtotal) {
         this.id = id;
         this.orderId = orderId;
         this.menuItemId = menuItemId;
@@ -63,19 +63,19 @@ public class OrderItem {
         this.quantity = quantity;
     }
 
-    public double getPrice() {
+    public long getPrice() {
         return price;
     }
 
-    public void setPrice(double price) {
+    public void setPrice(long price) {
         this.price = price;
     }
 
-    public double getSubtotal() {
+    public long getSubtotal() {
         return subtotal;
     }
 
-    public void setSubtotal(double subtotal) {
+    public void setSubtotal(long subtotal) {
         this.subtotal = subtotal;
     }
 }
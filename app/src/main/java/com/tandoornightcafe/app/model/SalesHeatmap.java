@@ -0,0 +1,55 @@
+package com.tandoornightcafe.app.model;
+
+import java.util.Calendar;
+
+/**
+ * Order count and revenue per weekday and local hour. Cells live in flat primitive arrays
+ * indexed {@code day * HOURS + hour}, with Monday as day 0.
+ */
+public final class SalesHeatmap {
+    public static final int DAYS = 7;
+    public static final int HOURS = 24;
+
+    private final int[] counts = new int[DAYS * HOURS];
+    private final long[] revenue = new long[DAYS * HOURS];
+    private int maxCount;
+    private long maxRevenue;
+
+    /** The {@link Calendar} day-of-week constant for a heatmap day. */
+    public static int toCalendarDay(int day) {
+        return (day + 1) % 7 + Calendar.SUNDAY;
+    }
+
+    /** Adds one order; only called while the heatmap is being built. */
+    public void add(int day, int hour, long total) {
+        int cell = day * HOURS + hour;
+        int count = ++counts[cell];
+        long sum = revenue[cell] += total;
+        if (count > maxCount) {
+            maxCount = count;
+        }
+        if (sum > maxRevenue) {
+            maxRevenue = sum;
+        }
+    }
+
+    public int getCount(int day, int hour) {
+        return counts[day * HOURS + hour];
+    }
+
+    public long getRevenue(int day, int hour) {
+        return revenue[day * HOURS + hour];
+    }
+
+    public int getMaxCount() {
+        return maxCount;
+    }
+
+    public long getMaxRevenue() {
+        return maxRevenue;
+    }
+
+    public boolean isEmpty() {
+        return maxCount == 0;
+    }
+}
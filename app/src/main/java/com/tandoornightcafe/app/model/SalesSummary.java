@@ -0,0 +1,41 @@
+package com.tandoornightcafe.app.model;
+
+import com.tandoornightcafe.app.util.Money;
+
+public class SalesSummary {
+    private final int orderCount;
+    private final long totalSales;
+    private final long minOrder;
+    private final long maxOrder;
+
+    public SalesSummary(int orderCount, long totalSales, long minOrder, long maxOrder) {
+        this.orderCount = orderCount;
+        this.totalSales = totalSales;
+        this.minOrder = minOrder;
+        this.maxOrder = maxOrder;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public long getTotalSales() {
+        return totalSales;
+    }
+
+    public long getAverageOrder() {
+        return Money.average(totalSales, orderCount);
+    }
+
+    public long getMinOrder() {
+        return minOrder;
+    }
+
+    public long getMaxOrder() {
+        return maxOrder;
+    }
+
+    public boolean isEmpty() {
+        return orderCount == 0;
+    }
+}
@@ -23,23 +23,23 @@ import androidx.core.content.FileProvider;
 
 import com.google.android.material.appbar.MaterialToolbar;
 import com.tandoornightcafe.app.R;
-import com.tandoornightcafe.app.db.DBHelper;
-import com.tandoornightcafe.app.model.MenuItem;
+import com.tandoornightcafe.app.TandoorApp;
+import com.tandoornightcafe.app.db.CafeRepository;
+import com.tandoornightcafe.app.model.CartSnapshot;
 import com.tandoornightcafe.app.model.Order;
 import com.tandoornightcafe.app.model.OrderItem;
+import com.tandoornightcafe.app.util.AppExecutors;
+import com.tandoornightcafe.app.util.InvoicePipeline;
 import com.tandoornightcafe.app.util.LocaleHelper;
-import com.tandoornightcafe.app.util.PDFGenerator;
+import com.tandoornightcafe.app.util.Money;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 public class BillingActivity extends AppCompatActivity {
     private static final int PERMISSION_REQUEST_CODE = 100;
 
-    private DBHelper dbHelper;
+    private CafeRepository repository;
     private EditText customerNameInput;
     private EditText customerPhoneInput;
     private Spinner paymentMethodSpinner;
@@ -48,26 +48,23 @@ public class BillingActivity extends AppCompatActivity {
     private TextView totalText;
     private Button generateInvoiceButton;
 
-    private double subtotal;
-    private double tax;
-    private double total;
-    private ArrayList<Long> itemIds;
-    private ArrayList<Integer> quantities;
+    private CartSnapshot cart;
 
     private Order savedOrder;
     private List<OrderItem> savedOrderItems;
+    private boolean invoiceRequested;
 
     @Override
     protected void attachBaseContext(Context newBase) {
-        DBHelper tempHelper = new DBHelper(newBase);
-        String language = tempHelper.getSetting("language");
-        tempHelper.close();
-        super.attachBaseContext(LocaleHelper.applyLocale(newBase, language != null ? language : "en"));
+        super.attachBaseContext(LocaleHelper.wrap(newBase));
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (SplashActivity.relaunchIfNotReady(this)) {
+            return;
+        }
         setContentView(R.layout.activity_billing);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
@@ -77,7 +74,7 @@ public class BillingActivity extends AppCompatActivity {
         }
         toolbar.setNavigationOnClickListener(v -> finish());
 
-        dbHelper = new DBHelper(this);
+        repository = CafeRepository.getInstance(this);
 
         customerNameInput = findViewById(R.id.input_customer_name);
         customerPhoneInput = findViewById(R.id.input_customer_phone);
@@ -98,16 +95,11 @@ public class BillingActivity extends AppCompatActivity {
                 android.R.layout.simple_spinner_dropdown_item, paymentMethods);
         paymentMethodSpinner.setAdapter(adapter);
 
-        Intent intent = getIntent();
-        subtotal = intent.getDoubleExtra("subtotal", 0);
-        tax = intent.getDoubleExtra("tax", 0);
-        total = intent.getDoubleExtra("total", 0);
-        itemIds = (ArrayList<Long>) intent.getSerializableExtra("item_ids");
-        quantities = (ArrayList<Integer>) intent.getSerializableExtra("quantities");
+        cart = getIntent().getParcelableExtra("cart");
 
-        subtotalText.setText(String.format(Locale.getDefault(), "₹%.2f", subtotal));
-        taxText.setText(String.format(Locale.getDefault(), "₹%.2f", tax));
-        totalText.setText(String.format(Locale.getDefault(), "₹%.2f", total));
+        subtotalText.setText(Money.format(cart.getSubtotal()));
+        taxText.setText(Money.format(cart.getTax()));
+        totalText.setText(Money.format(cart.getTotal()));
 
         generateInvoiceButton.setOnClickListener(v -> generateInvoice());
 
@@ -141,36 +133,27 @@ public class BillingActivity extends AppCompatActivity {
         Order order = new Order();
         order.setCustomerName(customerName);
         order.setCustomerPhone(customerPhone);
-        order.setSubtotal(subtotal);
-        order.setTax(tax);
-        order.setTotal(total);
+        order.setSubtotal(cart.getSubtotal());
+        order.setTax(cart.getTax());
+        order.setTotal(cart.getTotal());
         order.setPaymentMethod(paymentMethod);
         order.setStatus(getString(R.string.status_completed));
-        order.setOrderDate(new Date());
-        order.setInvoiceNumber(dbHelper.generateInvoiceNumber());
-
-        List<OrderItem> orderItems = new ArrayList<>();
-        for (int i = 0; i < itemIds.size(); i++) {
-            MenuItem menuItem = dbHelper.getMenuItem(itemIds.get(i));
-            int quantity = quantities.get(i);
-            
-            OrderItem orderItem = new OrderItem();
-            orderItem.setMenuItemId(menuItem.getId());
-            orderItem.setItemName(menuItem.getName());
-            orderItem.setQuantity(quantity);
-            orderItem.setPrice(menuItem.getPrice());
-            orderItem.setSubtotal(menuItem.getPrice() * quantity);
-            orderItems.add(orderItem);
-        }
+        order.setOrderDate(System.currentTimeMillis());
 
-        long orderId = dbHelper.createOrder(order, orderItems);
-        order.setId(orderId);
-
-        savedOrder = order;
-        savedOrderItems = orderItems;
-
-        Toast.makeText(this, R.string.order_placed, Toast.LENGTH_SHORT).show();
         generateInvoiceButton.setEnabled(false);
+        List<OrderItem> orderItems = cart.toOrderItems();
+        repository.placeOrder(order, orderItems, orderId -> {
+            if (orderId == -1) {
+                // The transaction rolled back, so the invoice number it allocated was never kept.
+                generateInvoiceButton.setEnabled(true);
+                Toast.makeText(this, R.string.error_place_order, Toast.LENGTH_LONG).show();
+                return;
+            }
+            savedOrder = order;
+            savedOrderItems = orderItems;
+            InvoicePipeline.getInstance().prepare(this, order, orderItems, TandoorApp.settings(this));
+            Toast.makeText(this, R.string.order_placed, Toast.LENGTH_SHORT).show();
+        });
     }
 
     private void savePDF() {
@@ -184,42 +167,53 @@ public class BillingActivity extends AppCompatActivity {
             }
         }
 
-        try {
-            String restaurantName = dbHelper.getSetting("restaurant_name");
-            String restaurantAddress = dbHelper.getSetting("restaurant_address");
-            String restaurantPhone = dbHelper.getSetting("restaurant_phone");
+        renderInvoice(invoiceFile -> Toast.makeText(this,
+                getString(R.string.report_exported) + "\n" + invoiceFile.getAbsolutePath(),
+                Toast.LENGTH_LONG).show());
+    }
 
-            File pdfFile = PDFGenerator.generateInvoice(this, savedOrder, savedOrderItems,
-                    restaurantName, restaurantAddress, restaurantPhone);
+    private void shareInvoice() {
+        Context appContext = getApplicationContext();
+        AppExecutors executors = AppExecutors.getInstance();
+        String mimeType = InvoicePipeline.getInstance().rendererFor(TandoorApp.settings(this)).getMimeType();
+        // getUriForFile canonicalizes the path, which reads the file system.
+        renderInvoice(invoiceFile -> executors.fileIO().execute(() -> {
+            Uri uri = FileProvider.getUriForFile(appContext,
+                    appContext.getPackageName() + ".provider", invoiceFile);
+            executors.mainThread().execute(() -> {
+                Intent shareIntent = new Intent(Intent.ACTION_SEND);
+                shareIntent.setType(mimeType);
+                shareIntent.putExtra(Intent.EXTRA_STREAM, uri);
+                shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+                startActivity(Intent.createChooser(shareIntent, getString(R.string.share_invoice)));
+            });
+        }));
+    }
 
-            Toast.makeText(this, getString(R.string.report_exported) + "\n" + pdfFile.getAbsolutePath(),
-                    Toast.LENGTH_LONG).show();
-        } catch (Exception e) {
-            Toast.makeText(this, getString(R.string.error) + ": " + e.getMessage(),
-                    Toast.LENGTH_SHORT).show();
-        }
+    private void renderInvoice(CafeRepository.Callback<File> onRendered) {
+        invoiceRequested = true;
+        InvoicePipeline.getInstance().get(this, savedOrder, savedOrderItems, TandoorApp.settings(this),
+                new InvoicePipeline.Listener() {
+                    @Override
+                    public void onRendered(File invoiceFile) {
+                        onRendered.onResult(invoiceFile);
+                    }
+
+                    @Override
+                    public void onFailed(Exception error) {
+                        Toast.makeText(BillingActivity.this,
+                                getString(R.string.error) + ": " + error.getMessage(),
+                                Toast.LENGTH_SHORT).show();
+                    }
+                });
     }
 
-    private void shareInvoice() {
-        try {
-            String restaurantName = dbHelper.getSetting("restaurant_name");
-            String restaurantAddress = dbHelper.getSetting("restaurant_address");
-            String restaurantPhone = dbHelper.getSetting("restaurant_phone");
-
-            File pdfFile = PDFGenerator.generateInvoice(this, savedOrder, savedOrderItems,
-                    restaurantName, restaurantAddress, restaurantPhone);
-
-            Uri uri = FileProvider.getUriForFile(this,
-                    getApplicationContext().getPackageName() + ".provider", pdfFile);
-
-            Intent shareIntent = new Intent(Intent.ACTION_SEND);
-            shareIntent.setType("application/pdf");
-            shareIntent.putExtra(Intent.EXTRA_STREAM, uri);
-            shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
-            startActivity(Intent.createChooser(shareIntent, getString(R.string.share_invoice)));
-        } catch (Exception e) {
-            Toast.makeText(this, getString(R.string.error) + ": " + e.getMessage(),
-                    Toast.LENGTH_SHORT).show();
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Leaving without saving or sharing abandons the speculative render.
+        if (isFinishing() && savedOrder != null && !invoiceRequested) {
+            InvoicePipeline.getInstance().cancel(savedOrder.getInvoiceNumber(), TandoorApp.settings(this));
         }
     }
 
@@ -235,12 +229,4 @@ public class BillingActivity extends AppCompatActivity {
             }
         }
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (dbHelper != null) {
-            dbHelper.close();
-        }
-    }
 }
@@ -0,0 +1,172 @@
+package com.tandoornightcafe.app.ui;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.core.content.ContextCompat;
+
+import com.tandoornightcafe.app.R;
+import com.tandoornightcafe.app.model.SalesHeatmap;
+
+import java.text.DateFormatSymbols;
+
+/**
+ * Draws a {@link SalesHeatmap} as seven weekday rows of 24 hour cells, shaded by order count
+ * or revenue. Cell colours are worked out when the data or metric changes, so drawing is
+ * just rectangles. Tapping a cell selects it and reports it to the listener.
+ */
+public class HeatmapView extends View {
+    public interface OnCellSelectedListener {
+        void onCellSelected(int day, int hour);
+    }
+
+    private static final int MIN_ALPHA = 40;
+    private static final int HOUR_LABEL_STEP = 3;
+
+    private final Paint cellPaint = new Paint();
+    private final Paint selectionPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final String[] dayLabels = new String[SalesHeatmap.DAYS];
+    private final int[] cellColors = new int[SalesHeatmap.DAYS * SalesHeatmap.HOURS];
+    private final int emptyColor;
+    private final int fillColor;
+    private final float gap;
+    private final float dayLabelWidth;
+    private final float headerHeight;
+
+    private SalesHeatmap heatmap;
+    private boolean showRevenue;
+    private int selectedDay = -1;
+    private int selectedHour = -1;
+    private OnCellSelectedListener listener;
+
+    public HeatmapView(Context context) {
+        this(context, null);
+    }
+
+    public HeatmapView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        emptyColor = ContextCompat.getColor(context, R.color.surface);
+        fillColor = ContextCompat.getColor(context, R.color.primary);
+        gap = getResources().getDisplayMetrics().density;
+
+        labelPaint.setColor(ContextCompat.getColor(context, R.color.text_secondary));
+        labelPaint.setTextSize(getResources().getDimension(R.dimen.text_size_small));
+        selectionPaint.setStyle(Paint.Style.STROKE);
+        selectionPaint.setStrokeWidth(2 * gap);
+        selectionPaint.setColor(ContextCompat.getColor(context, R.color.text_primary));
+
+        // Short weekday names in the app language, Monday first.
+        String[] weekdays = DateFormatSymbols.getInstance().getShortWeekdays();
+        float widest = 0;
+        for (int day = 0; day < SalesHeatmap.DAYS; day++) {
+            dayLabels[day] = weekdays[SalesHeatmap.toCalendarDay(day)];
+            widest = Math.max(widest, labelPaint.measureText(dayLabels[day]));
+        }
+        dayLabelWidth = widest + 4 * gap;
+        headerHeight = labelPaint.descent() - labelPaint.ascent() + 2 * gap;
+        recolor();
+    }
+
+    public void setHeatmap(SalesHeatmap heatmap) {
+        this.heatmap = heatmap;
+        selectedDay = -1;
+        selectedHour = -1;
+        recolor();
+    }
+
+    public void setShowRevenue(boolean showRevenue) {
+        this.showRevenue = showRevenue;
+        recolor();
+    }
+
+    public void setOnCellSelectedListener(OnCellSelectedListener listener) {
+        this.listener = listener;
+    }
+
+    private void recolor() {
+        long max = heatmap == null ? 0 : showRevenue ? heatmap.getMaxRevenue() : heatmap.getMaxCount();
+        int red = Color.red(fillColor);
+        int green = Color.green(fillColor);
+        int blue = Color.blue(fillColor);
+        for (int day = 0; day < SalesHeatmap.DAYS; day++) {
+            for (int hour = 0; hour < SalesHeatmap.HOURS; hour++) {
+                long value = max == 0 ? 0
+                        : showRevenue ? heatmap.getRevenue(day, hour) : heatmap.getCount(day, hour);
+                cellColors[day * SalesHeatmap.HOURS + hour] = value <= 0 ? emptyColor
+                        : Color.argb((int) (MIN_ALPHA + (255 - MIN_ALPHA) * value / max), red, green, blue);
+            }
+        }
+        invalidate();
+    }
+
+    private float cellSize() {
+        return (getWidth() - getPaddingLeft() - getPaddingRight() - dayLabelWidth) / SalesHeatmap.HOURS;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        float cell = (width - getPaddingLeft() - getPaddingRight() - dayLabelWidth) / SalesHeatmap.HOURS;
+        int height = (int) Math.ceil(getPaddingTop() + headerHeight + cell * SalesHeatmap.DAYS + getPaddingBottom());
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float cell = cellSize();
+        float left = getPaddingLeft() + dayLabelWidth;
+        float top = getPaddingTop() + headerHeight;
+
+        float baseline = getPaddingTop() - labelPaint.ascent();
+        for (int hour = 0; hour < SalesHeatmap.HOURS; hour += HOUR_LABEL_STEP) {
+            canvas.drawText(String.valueOf(hour), left + hour * cell, baseline, labelPaint);
+        }
+
+        float labelOffset = (cell - labelPaint.ascent() - labelPaint.descent()) / 2;
+        for (int day = 0; day < SalesHeatmap.DAYS; day++) {
+            float y = top + day * cell;
+            canvas.drawText(dayLabels[day], getPaddingLeft(), y + labelOffset, labelPaint);
+            for (int hour = 0; hour < SalesHeatmap.HOURS; hour++) {
+                float x = left + hour * cell;
+                cellPaint.setColor(cellColors[day * SalesHeatmap.HOURS + hour]);
+                canvas.drawRect(x, y, x + cell - gap, y + cell - gap, cellPaint);
+            }
+        }
+
+        if (selectedDay >= 0) {
+            float x = left + selectedHour * cell;
+            float y = top + selectedDay * cell;
+            canvas.drawRect(x, y, x + cell - gap, y + cell - gap, selectionPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (heatmap == null) {
+            return false;
+        }
+        if (event.getAction() == MotionEvent.ACTION_UP) {
+            float cell = cellSize();
+            float x = event.getX() - getPaddingLeft() - dayLabelWidth;
+            float y = event.getY() - getPaddingTop() - headerHeight;
+            int hour = (int) (x / cell);
+            int day = (int) (y / cell);
+            if (x >= 0 && y >= 0 && hour < SalesHeatmap.HOURS && day < SalesHeatmap.DAYS) {
+                selectedDay = day;
+                selectedHour = hour;
+                invalidate();
+                if (listener != null) {
+                    listener.onCellSelected(day, hour);
+                }
+            }
+            performClick();
+        }
+        return true;
+    }
+}
@@ -10,30 +10,26 @@ import androidx.cardview.widget.CardView;
 
 import com.google.android.material.appbar.MaterialToolbar;
 import com.tandoornightcafe.app.R;
-import com.tandoornightcafe.app.db.DBHelper;
 import com.tandoornightcafe.app.util.LocaleHelper;
 
 public class HomeActivity extends AppCompatActivity {
-    private DBHelper dbHelper;
 
     @Override
     protected void attachBaseContext(Context newBase) {
-        DBHelper tempHelper = new DBHelper(newBase);
-        String language = tempHelper.getSetting("language");
-        tempHelper.close();
-        super.attachBaseContext(LocaleHelper.applyLocale(newBase, language != null ? language : "en"));
+        super.attachBaseContext(LocaleHelper.wrap(newBase));
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (SplashActivity.relaunchIfNotReady(this)) {
+            return;
+        }
         setContentView(R.layout.activity_home);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
 
-        dbHelper = new DBHelper(this);
-
         CardView menuCard = findViewById(R.id.card_menu);
         CardView orderCard = findViewById(R.id.card_order);
         CardView ordersCard = findViewById(R.id.card_orders);
@@ -65,12 +61,4 @@ public class HomeActivity extends AppCompatActivity {
             startActivity(intent);
         });
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (dbHelper != null) {
-            dbHelper.close();
-        }
-    }
 }
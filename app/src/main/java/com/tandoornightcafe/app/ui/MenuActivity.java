@@ -19,29 +19,35 @@ import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.tandoornightcafe.app.R;
 import com.tandoornightcafe.app.adapter.MenuAdapter;
-import com.tandoornightcafe.app.db.DBHelper;
+import com.tandoornightcafe.app.db.CafeRepository;
+import com.tandoornightcafe.app.model.Category;
 import com.tandoornightcafe.app.model.MenuItem;
+import com.tandoornightcafe.app.util.CategoryLabels;
 import com.tandoornightcafe.app.util.LocaleHelper;
+import com.tandoornightcafe.app.util.Money;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class MenuActivity extends AppCompatActivity implements MenuAdapter.OnMenuItemClickListener {
-    private DBHelper dbHelper;
+    private CafeRepository repository;
     private RecyclerView recyclerView;
     private MenuAdapter adapter;
     private List<MenuItem> menuItems;
+    private List<Category> categories;
 
     @Override
     protected void attachBaseContext(Context newBase) {
-        DBHelper tempHelper = new DBHelper(newBase);
-        String language = tempHelper.getSetting("language");
-        tempHelper.close();
-        super.attachBaseContext(LocaleHelper.applyLocale(newBase, language != null ? language : "en"));
+        super.attachBaseContext(LocaleHelper.wrap(newBase));
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (SplashActivity.relaunchIfNotReady(this)) {
+            return;
+        }
         setContentView(R.layout.activity_menu);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
@@ -51,7 +57,7 @@ public class MenuActivity extends AppCompatActivity implements MenuAdapter.OnMen
         }
         toolbar.setNavigationOnClickListener(v -> finish());
 
-        dbHelper = new DBHelper(this);
+        repository = CafeRepository.getInstance(this);
 
         recyclerView = findViewById(R.id.recycler_view);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
@@ -63,16 +69,28 @@ public class MenuActivity extends AppCompatActivity implements MenuAdapter.OnMen
     }
 
     private void loadMenuItems() {
-        menuItems = dbHelper.getAllMenuItems();
-        if (adapter == null) {
-            adapter = new MenuAdapter(menuItems, this);
-            recyclerView.setAdapter(adapter);
-        } else {
-            adapter.updateItems(menuItems);
-        }
+        repository.getCategories(loaded -> {
+            categories = loaded;
+            Map<Long, String> labels = new HashMap<>();
+            for (Category category : categories) {
+                labels.put(category.getId(), CategoryLabels.of(this, category));
+            }
+            repository.getAllMenuItems(items -> {
+                menuItems = items;
+                if (adapter == null) {
+                    adapter = new MenuAdapter(this);
+                    recyclerView.setAdapter(adapter);
+                }
+                adapter.setCategoryLabels(labels);
+                adapter.submitList(menuItems);
+            });
+        });
     }
 
     private void showAddEditDialog(MenuItem item) {
+        if (categories == null) {
+            return;
+        }
         boolean isEdit = item != null;
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle(isEdit ? R.string.edit_item : R.string.add_item);
@@ -85,24 +103,21 @@ public class MenuActivity extends AppCompatActivity implements MenuAdapter.OnMen
         Spinner categorySpinner = dialogView.findViewById(R.id.spinner_category);
         EditText priceInput = dialogView.findViewById(R.id.input_price);
 
-        String[] categories = {
-                getString(R.string.category_appetizer),
-                getString(R.string.category_main_course),
-                getString(R.string.category_bread),
-                getString(R.string.category_beverage),
-                getString(R.string.category_dessert)
-        };
+        String[] categoryLabels = new String[categories.size()];
+        for (int i = 0; i < categoryLabels.length; i++) {
+            categoryLabels[i] = CategoryLabels.of(this, categories.get(i));
+        }
         ArrayAdapter<String> spinnerAdapter = new ArrayAdapter<>(this,
-                android.R.layout.simple_spinner_dropdown_item, categories);
+                android.R.layout.simple_spinner_dropdown_item, categoryLabels);
         categorySpinner.setAdapter(spinnerAdapter);
 
         if (isEdit) {
             nameInput.setText(item.getName());
             descriptionInput.setText(item.getDescription());
-            priceInput.setText(String.valueOf(item.getPrice()));
+            priceInput.setText(Money.toPlainString(item.getPrice()));
             
-            for (int i = 0; i < categories.length; i++) {
-                if (categories[i].equals(item.getCategory())) {
+            for (int i = 0; i < categories.size(); i++) {
+                if (categories.get(i).getId() == item.getCategoryId()) {
                     categorySpinner.setSelection(i);
                     break;
                 }
@@ -118,7 +133,7 @@ public class MenuActivity extends AppCompatActivity implements MenuAdapter.OnMen
         dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(v -> {
             String name = nameInput.getText().toString().trim();
             String description = descriptionInput.getText().toString().trim();
-            String category = categorySpinner.getSelectedItem().toString();
+            long categoryId = categories.get(categorySpinner.getSelectedItemPosition()).getId();
             String priceStr = priceInput.getText().toString().trim();
 
             if (TextUtils.isEmpty(name)) {
@@ -131,9 +146,9 @@ public class MenuActivity extends AppCompatActivity implements MenuAdapter.OnMen
                 return;
             }
 
-            double price;
+            long price;
             try {
-                price = Double.parseDouble(priceStr);
+                price = Money.parse(priceStr);
                 if (price <= 0) {
                     priceInput.setError(getString(R.string.error_invalid_price));
                     return;
@@ -144,19 +159,19 @@ public class MenuActivity extends AppCompatActivity implements MenuAdapter.OnMen
             }
 
             if (isEdit) {
-                item.setName(name);
-                item.setDescription(description);
-                item.setCategory(category);
-                item.setPrice(price);
-                dbHelper.updateMenuItem(item);
-                Toast.makeText(this, R.string.settings_saved, Toast.LENGTH_SHORT).show();
+                MenuItem updated = new MenuItem(item.getId(), name, description, categoryId, price);
+                repository.updateMenuItem(updated, rows -> {
+                    Toast.makeText(this, R.string.settings_saved, Toast.LENGTH_SHORT).show();
+                    loadMenuItems();
+                });
             } else {
-                MenuItem newItem = new MenuItem(0, name, description, category, price);
-                dbHelper.addMenuItem(newItem);
-                Toast.makeText(this, R.string.success, Toast.LENGTH_SHORT).show();
+                MenuItem newItem = new MenuItem(0, name, description, categoryId, price);
+                repository.addMenuItem(newItem, id -> {
+                    Toast.makeText(this, R.string.success, Toast.LENGTH_SHORT).show();
+                    loadMenuItems();
+                });
             }
 
-            loadMenuItems();
             dialog.dismiss();
         });
     }
@@ -172,19 +187,12 @@ public class MenuActivity extends AppCompatActivity implements MenuAdapter.OnMen
                 .setTitle(R.string.delete_item)
                 .setMessage(R.string.confirm_delete)
                 .setPositiveButton(R.string.yes, (dialog, which) -> {
-                    dbHelper.deleteMenuItem(item.getId());
-                    loadMenuItems();
-                    Toast.makeText(this, R.string.success, Toast.LENGTH_SHORT).show();
+                    repository.deleteMenuItem(item.getId(), ignored -> {
+                        loadMenuItems();
+                        Toast.makeText(this, R.string.success, Toast.LENGTH_SHORT).show();
+                    });
                 })
                 .setNegativeButton(R.string.no, null)
                 .show();
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (dbHelper != null) {
-            dbHelper.close();
-        }
-    }
 }
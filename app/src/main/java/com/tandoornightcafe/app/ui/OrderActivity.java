@@ -3,7 +3,10 @@ package com.tandoornightcafe.app.ui;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -14,45 +17,62 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.tabs.TabLayout;
 import com.tandoornightcafe.app.R;
+import com.tandoornightcafe.app.TandoorApp;
 import com.tandoornightcafe.app.adapter.CartAdapter;
 import com.tandoornightcafe.app.adapter.SelectMenuAdapter;
-import com.tandoornightcafe.app.db.DBHelper;
-import com.tandoornightcafe.app.model.CartItem;
+import com.tandoornightcafe.app.db.CafeRepository;
+import com.tandoornightcafe.app.db.SettingsStore;
+import com.tandoornightcafe.app.model.AppSettings;
+import com.tandoornightcafe.app.model.Cart;
+import com.tandoornightcafe.app.model.Category;
+import com.tandoornightcafe.app.model.CartSnapshot;
 import com.tandoornightcafe.app.model.MenuItem;
+import com.tandoornightcafe.app.util.CategoryLabels;
 import com.tandoornightcafe.app.util.LocaleHelper;
+import com.tandoornightcafe.app.util.Money;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 public class OrderActivity extends AppCompatActivity 
         implements SelectMenuAdapter.OnMenuItemSelectListener, CartAdapter.OnCartItemChangeListener {
     
-    private DBHelper dbHelper;
+    private CafeRepository repository;
     private RecyclerView menuRecyclerView;
     private RecyclerView cartRecyclerView;
     private SelectMenuAdapter menuAdapter;
     private CartAdapter cartAdapter;
     private List<MenuItem> menuItems;
-    private List<CartItem> cartItems;
+    private Cart cart;
     private TextView subtotalText;
     private TextView taxText;
     private TextView totalText;
     private Button proceedButton;
     private TabLayout categoryTabs;
-    private double taxRate = 5.0;
+    private EditText searchInput;
+    // Category id of the selected tab, or null for "All".
+    private Long selectedCategory;
+    // Non-null while the search box has text; results for any other query are dropped.
+    private String searchQuery;
+    private AppSettings settings;
+    private final SettingsStore.Listener settingsListener = updated -> {
+        settings = updated;
+        cart.setTaxBasisPoints(settings.getTaxBasisPoints());
+        updateTotals();
+    };
 
     @Override
     protected void attachBaseContext(Context newBase) {
-        DBHelper tempHelper = new DBHelper(newBase);
-        String language = tempHelper.getSetting("language");
-        tempHelper.close();
-        super.attachBaseContext(LocaleHelper.applyLocale(newBase, language != null ? language : "en"));
+        super.attachBaseContext(LocaleHelper.wrap(newBase));
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (SplashActivity.relaunchIfNotReady(this)) {
+            return;
+        }
         setContentView(R.layout.activity_order);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
@@ -62,17 +82,12 @@ public class OrderActivity extends AppCompatActivity
         }
         toolbar.setNavigationOnClickListener(v -> finish());
 
-        dbHelper = new DBHelper(this);
-        String taxRateStr = dbHelper.getSetting("tax_rate");
-        if (taxRateStr != null) {
-            try {
-                taxRate = Double.parseDouble(taxRateStr);
-            } catch (NumberFormatException e) {
-                taxRate = 5.0;
-            }
-        }
+        repository = CafeRepository.getInstance(this);
+        settings = TandoorApp.settings(this);
+        TandoorApp.settingsStore(this).addListener(settingsListener);
 
         categoryTabs = findViewById(R.id.category_tabs);
+        searchInput = findViewById(R.id.input_search);
         menuRecyclerView = findViewById(R.id.recycler_menu);
         cartRecyclerView = findViewById(R.id.recycler_cart);
         subtotalText = findViewById(R.id.text_subtotal);
@@ -83,55 +98,49 @@ public class OrderActivity extends AppCompatActivity
         menuRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         cartRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
-        cartItems = new ArrayList<>();
-        cartAdapter = new CartAdapter(cartItems, this);
+        cart = new Cart(settings.getTaxBasisPoints());
+        cartAdapter = new CartAdapter(this);
         cartRecyclerView.setAdapter(cartAdapter);
 
         setupCategoryTabs();
+        setupSearch();
         loadMenuItems(null);
 
         proceedButton.setOnClickListener(v -> {
-            if (cartItems.isEmpty()) {
+            if (cart.isEmpty()) {
                 Toast.makeText(this, R.string.error_select_items, Toast.LENGTH_SHORT).show();
                 return;
             }
 
             Intent intent = new Intent(OrderActivity.this, BillingActivity.class);
-            intent.putExtra("subtotal", calculateSubtotal());
-            intent.putExtra("tax", calculateTax());
-            intent.putExtra("total", calculateTotal());
-            
-            ArrayList<Long> itemIds = new ArrayList<>();
-            ArrayList<Integer> quantities = new ArrayList<>();
-            for (CartItem item : cartItems) {
-                itemIds.add(item.getMenuItem().getId());
-                quantities.add(item.getQuantity());
-            }
-            intent.putExtra("item_ids", itemIds);
-            intent.putExtra("quantities", quantities);
-            
+            intent.putExtra("cart", CartSnapshot.of(cart));
             startActivity(intent);
         });
 
         updateTotals();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        TandoorApp.settingsStore(this).removeListener(settingsListener);
+    }
+
     private void setupCategoryTabs() {
-        categoryTabs.addTab(categoryTabs.newTab().setText(R.string.all));
-        categoryTabs.addTab(categoryTabs.newTab().setText(R.string.category_appetizer));
-        categoryTabs.addTab(categoryTabs.newTab().setText(R.string.category_main_course));
-        categoryTabs.addTab(categoryTabs.newTab().setText(R.string.category_bread));
-        categoryTabs.addTab(categoryTabs.newTab().setText(R.string.category_beverage));
-        categoryTabs.addTab(categoryTabs.newTab().setText(R.string.category_dessert));
+        TabLayout.Tab allTab = categoryTabs.newTab().setText(R.string.all);
+        categoryTabs.addTab(allTab);
 
         categoryTabs.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
             @Override
             public void onTabSelected(TabLayout.Tab tab) {
-                String category = null;
-                if (tab.getPosition() > 0) {
-                    category = tab.getText().toString();
+                Long category = (Long) tab.getTag();
+                if (searchQuery != null) {
+                    // Clearing the box reloads the list for the newly selected category.
+                    selectedCategory = category;
+                    searchInput.setText(null);
+                } else {
+                    loadMenuItems(category);
                 }
-                loadMenuItems(category);
             }
 
             @Override
@@ -140,78 +149,100 @@ public class OrderActivity extends AppCompatActivity
             @Override
             public void onTabReselected(TabLayout.Tab tab) {}
         });
+
+        repository.getCategories(categories -> {
+            int total = 0;
+            for (Category category : categories) {
+                total += category.getItemCount();
+                categoryTabs.addTab(categoryTabs.newTab()
+                        .setText(tabLabel(CategoryLabels.of(this, category), category.getItemCount()))
+                        .setTag(category.getId()), false);
+            }
+            allTab.setText(tabLabel(getString(R.string.all), total));
+        });
+    }
+
+    private static String tabLabel(String name, int itemCount) {
+        return name + " (" + itemCount + ")";
+    }
+
+    private void setupSearch() {
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                String query = s.toString().trim();
+                if (query.isEmpty()) {
+                    searchQuery = null;
+                    loadMenuItems(selectedCategory);
+                    return;
+                }
+                searchQuery = query;
+                repository.searchMenuItems(query, items -> {
+                    if (query.equals(searchQuery)) {
+                        showMenuItems(items);
+                    }
+                });
+            }
+        });
     }
 
-    private void loadMenuItems(String category) {
+    private void loadMenuItems(Long category) {
+        selectedCategory = category;
+        CafeRepository.Callback<List<MenuItem>> callback = items -> {
+            if (searchQuery != null || !Objects.equals(category, selectedCategory)) {
+                return;
+            }
+            showMenuItems(items);
+        };
         if (category == null) {
-            menuItems = dbHelper.getAllMenuItems();
+            repository.getAllMenuItems(callback);
         } else {
-            menuItems = dbHelper.getMenuItemsByCategory(category);
+            repository.getMenuItemsByCategory(category, callback);
         }
-        
+    }
+
+    private void showMenuItems(List<MenuItem> items) {
+        menuItems = items;
         if (menuAdapter == null) {
-            menuAdapter = new SelectMenuAdapter(menuItems, this);
+            menuAdapter = new SelectMenuAdapter(this);
             menuRecyclerView.setAdapter(menuAdapter);
-        } else {
-            menuAdapter.updateItems(menuItems);
         }
+        menuAdapter.submitList(menuItems);
     }
 
     @Override
     public void onItemSelected(MenuItem item) {
-        for (CartItem cartItem : cartItems) {
-            if (cartItem.getMenuItem().getId() == item.getId()) {
-                cartItem.setQuantity(cartItem.getQuantity() + 1);
-                cartAdapter.updateItems(cartItems);
-                updateTotals();
-                return;
-            }
-        }
-        
-        cartItems.add(new CartItem(item, 1));
-        cartAdapter.updateItems(cartItems);
-        updateTotals();
+        cart.add(item);
+        onCartChanged();
     }
 
     @Override
-    public void onQuantityChanged() {
-        updateTotals();
+    public void onQuantityChanged(long menuItemId, int delta) {
+        cart.changeQuantity(menuItemId, delta);
+        onCartChanged();
     }
 
     @Override
-    public void onRemoveItem(CartItem item) {
-        cartItems.remove(item);
-        cartAdapter.updateItems(cartItems);
-        updateTotals();
+    public void onRemoveItem(long menuItemId) {
+        cart.remove(menuItemId);
+        onCartChanged();
     }
 
-    private double calculateSubtotal() {
-        double subtotal = 0;
-        for (CartItem item : cartItems) {
-            subtotal += item.getSubtotal();
-        }
-        return subtotal;
-    }
-
-    private double calculateTax() {
-        return calculateSubtotal() * taxRate / 100;
-    }
-
-    private double calculateTotal() {
-        return calculateSubtotal() + calculateTax();
+    private void onCartChanged() {
+        cartAdapter.submitList(cart.getItems());
+        updateTotals();
     }
 
     private void updateTotals() {
-        subtotalText.setText(String.format(Locale.getDefault(), "₹%.2f", calculateSubtotal()));
-        taxText.setText(String.format(Locale.getDefault(), "₹%.2f (%.1f%%)", calculateTax(), taxRate));
-        totalText.setText(String.format(Locale.getDefault(), "₹%.2f", calculateTotal()));
-    }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (dbHelper != null) {
-            dbHelper.close();
-        }
+        subtotalText.setText(Money.format(cart.getSubtotal()));
+        taxText.setText(Money.format(cart.getTax())
+                + String.format(Locale.getDefault(), " (%.1f%%)", settings.getTaxRate()));
+        totalText.setText(Money.format(cart.getTotal()));
     }
 }
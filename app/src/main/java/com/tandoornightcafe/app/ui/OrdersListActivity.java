@@ -3,10 +3,14 @@ package com.tandoornightcafe.app.ui;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -14,33 +18,41 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.tandoornightcafe.app.R;
 import com.tandoornightcafe.app.adapter.OrderAdapter;
-import com.tandoornightcafe.app.db.DBHelper;
+import com.tandoornightcafe.app.db.CafeRepository;
 import com.tandoornightcafe.app.model.Order;
 import com.tandoornightcafe.app.model.OrderItem;
 import com.tandoornightcafe.app.util.LocaleHelper;
+import com.tandoornightcafe.app.util.Money;
 
 import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.Locale;
 
 public class OrdersListActivity extends AppCompatActivity implements OrderAdapter.OnOrderClickListener {
-    private DBHelper dbHelper;
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 15;
+
+    private CafeRepository repository;
     private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
     private OrderAdapter adapter;
-    private List<Order> orders;
     private TextView emptyView;
+    private boolean hasMoreOrders = true;
+    private boolean loadingPage;
+    // What the list currently shows: "" for all orders, otherwise the search text.
+    private String query = "";
 
     @Override
     protected void attachBaseContext(Context newBase) {
-        DBHelper tempHelper = new DBHelper(newBase);
-        String language = tempHelper.getSetting("language");
-        tempHelper.close();
-        super.attachBaseContext(LocaleHelper.applyLocale(newBase, language != null ? language : "en"));
+        super.attachBaseContext(LocaleHelper.wrap(newBase));
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (SplashActivity.relaunchIfNotReady(this)) {
+            return;
+        }
         setContentView(R.layout.activity_orders_list);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
@@ -50,38 +62,92 @@ public class OrdersListActivity extends AppCompatActivity implements OrderAdapte
         }
         toolbar.setNavigationOnClickListener(v -> finish());
 
-        dbHelper = new DBHelper(this);
+        repository = CafeRepository.getInstance(this);
 
         recyclerView = findViewById(R.id.recycler_view);
         emptyView = findViewById(R.id.text_empty);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        adapter = new OrderAdapter(this);
+        recyclerView.setAdapter(adapter);
+        EditText searchInput = findViewById(R.id.input_search);
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                String text = s.toString().trim();
+                if (!text.equals(query)) {
+                    query = text;
+                    loadPage(true);
+                }
+            }
+        });
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition()
+                        >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadPage(false);
+                }
+            }
+        });
 
-        loadOrders();
+        loadPage(true);
     }
 
-    private void loadOrders() {
-        orders = dbHelper.getAllOrders();
-        if (orders.isEmpty()) {
-            recyclerView.setVisibility(View.GONE);
-            emptyView.setVisibility(View.VISIBLE);
-        } else {
-            recyclerView.setVisibility(View.VISIBLE);
-            emptyView.setVisibility(View.GONE);
-            if (adapter == null) {
-                adapter = new OrderAdapter(orders, this);
-                recyclerView.setAdapter(adapter);
+    /** Loads the next page, or with {@code restart} the first page for the current query. */
+    private void loadPage(boolean restart) {
+        if (!restart && (!hasMoreOrders || loadingPage)) {
+            return;
+        }
+        loadingPage = true;
+        String pageQuery = query;
+        Order after = restart ? null : adapter.getLastOrder();
+        CafeRepository.Callback<List<Order>> callback = page -> {
+            // A newer query has its own request in flight and will clear loadingPage.
+            if (!pageQuery.equals(query)) {
+                return;
+            }
+            hasMoreOrders = page.size() == PAGE_SIZE;
+            // The next page is keyed off the last row, so wait until this one is committed.
+            Runnable onCommitted = () -> {
+                if (!pageQuery.equals(query)) {
+                    return;
+                }
+                loadingPage = false;
+                boolean empty = adapter.getItemCount() == 0;
+                recyclerView.setVisibility(empty ? View.GONE : View.VISIBLE);
+                emptyView.setVisibility(empty ? View.VISIBLE : View.GONE);
+            };
+            if (after == null) {
+                adapter.submitList(page, onCommitted);
             } else {
-                adapter.updateOrders(orders);
+                adapter.appendOrders(page, onCommitted);
             }
+        };
+        if (pageQuery.isEmpty()) {
+            repository.getOrdersPage(after, PAGE_SIZE, callback);
+        } else {
+            repository.searchOrders(pageQuery, after, PAGE_SIZE, callback);
         }
     }
 
     @Override
     public void onOrderClick(Order order) {
-        showOrderDetails(order);
+        // List rows only carry the columns the row shows; the dialog needs the full order.
+        repository.getOrder(order.getId(), this::showOrderDetails);
     }
 
     private void showOrderDetails(Order order) {
+        // Delivered asynchronously; the window may be gone by the time the row arrives.
+        if (order == null || isFinishing() || isDestroyed()) {
+            return;
+        }
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle(getString(R.string.view_details));
 
@@ -105,29 +171,23 @@ public class OrdersListActivity extends AppCompatActivity implements OrderAdapte
         customerText.setText(order.getCustomerName());
         phoneText.setText(order.getCustomerPhone() != null ? order.getCustomerPhone() : "-");
         paymentText.setText(order.getPaymentMethod());
-        subtotalText.setText(String.format(Locale.getDefault(), "₹%.2f", order.getSubtotal()));
-        taxText.setText(String.format(Locale.getDefault(), "₹%.2f", order.getTax()));
-        totalText.setText(String.format(Locale.getDefault(), "₹%.2f", order.getTotal()));
-
-        List<OrderItem> orderItems = dbHelper.getOrderItems(order.getId());
-        StringBuilder itemsBuilder = new StringBuilder();
-        for (OrderItem item : orderItems) {
-            itemsBuilder.append(item.getItemName())
-                    .append(" x").append(item.getQuantity())
-                    .append(" - ₹").append(String.format(Locale.getDefault(), "%.2f", item.getSubtotal()))
-                    .append("\n");
-        }
-        itemsText.setText(itemsBuilder.toString());
+        subtotalText.setText(Money.format(order.getSubtotal()));
+        taxText.setText(Money.format(order.getTax()));
+        totalText.setText(Money.format(order.getTotal()));
+
+        itemsText.setText(R.string.loading);
+        repository.getOrderItems(order.getId(), orderItems -> {
+            StringBuilder itemsBuilder = new StringBuilder();
+            for (OrderItem item : orderItems) {
+                itemsBuilder.append(item.getItemName())
+                        .append(" x").append(item.getQuantity())
+                        .append(" - ").append(Money.format(item.getSubtotal()))
+                        .append("\n");
+            }
+            itemsText.setText(itemsBuilder.toString());
+        });
 
         builder.setPositiveButton(R.string.ok, null);
         builder.show();
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (dbHelper != null) {
-            dbHelper.close();
-        }
-    }
 }
@@ -5,9 +5,15 @@ import android.app.DatePickerDialog;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import android.database.Cursor;
 import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.RadioGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -18,22 +24,28 @@ import androidx.core.content.ContextCompat;
 
 import com.google.android.material.appbar.MaterialToolbar;
 import com.tandoornightcafe.app.R;
-import com.tandoornightcafe.app.db.DBHelper;
-import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.db.CafeRepository;
+import com.tandoornightcafe.app.model.ItemSales;
+import com.tandoornightcafe.app.model.SalesHeatmap;
+import com.tandoornightcafe.app.model.SalesSummary;
+import com.tandoornightcafe.app.util.AppExecutors;
 import com.tandoornightcafe.app.util.CSVExporter;
 import com.tandoornightcafe.app.util.LocaleHelper;
+import com.tandoornightcafe.app.util.Money;
 
 import java.io.File;
+import java.text.DateFormatSymbols;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
 
 public class ReportsActivity extends AppCompatActivity {
     private static final int PERMISSION_REQUEST_CODE = 100;
+    private static final int TOP_ITEMS_PAGE = 10;
 
-    private DBHelper dbHelper;
+    private CafeRepository repository;
     private EditText fromDateInput;
     private EditText toDateInput;
     private TextView totalSalesText;
@@ -41,23 +53,39 @@ public class ReportsActivity extends AppCompatActivity {
     private TextView averageOrderText;
     private Button generateButton;
     private Button exportButton;
+    private View exportProgressLayout;
+    private ProgressBar exportProgressBar;
+    private TextView exportProgressText;
+    private LinearLayout topItemsLayout;
+    private Button showMoreItemsButton;
+    private Button exportItemsButton;
+    private HeatmapView heatmapView;
+    private TextView heatmapDetailText;
 
     private Calendar fromDate;
     private Calendar toDate;
     private SimpleDateFormat displayFormat = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
-    private List<Order> currentOrders;
+    private SalesSummary currentSummary;
+    private long reportStartMillis;
+    private long reportEndMillis;
+    private int topItemsLimit;
+    private SalesHeatmap currentHeatmap;
+
+    private volatile boolean exportCancelled;
+    private boolean exportRunning;
+    private boolean pendingItemSalesExport;
 
     @Override
     protected void attachBaseContext(Context newBase) {
-        DBHelper tempHelper = new DBHelper(newBase);
-        String language = tempHelper.getSetting("language");
-        tempHelper.close();
-        super.attachBaseContext(LocaleHelper.applyLocale(newBase, language != null ? language : "en"));
+        super.attachBaseContext(LocaleHelper.wrap(newBase));
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (SplashActivity.relaunchIfNotReady(this)) {
+            return;
+        }
         setContentView(R.layout.activity_reports);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
@@ -67,7 +95,7 @@ public class ReportsActivity extends AppCompatActivity {
         }
         toolbar.setNavigationOnClickListener(v -> finish());
 
-        dbHelper = new DBHelper(this);
+        repository = CafeRepository.getInstance(this);
 
         fromDateInput = findViewById(R.id.input_from_date);
         toDateInput = findViewById(R.id.input_to_date);
@@ -76,6 +104,16 @@ public class ReportsActivity extends AppCompatActivity {
         averageOrderText = findViewById(R.id.text_average_order);
         generateButton = findViewById(R.id.button_generate);
         exportButton = findViewById(R.id.button_export);
+        exportProgressLayout = findViewById(R.id.layout_export_progress);
+        exportProgressBar = findViewById(R.id.progress_export);
+        exportProgressText = findViewById(R.id.text_export_progress);
+        Button cancelExportButton = findViewById(R.id.button_cancel_export);
+        topItemsLayout = findViewById(R.id.layout_top_items);
+        showMoreItemsButton = findViewById(R.id.button_show_more_items);
+        exportItemsButton = findViewById(R.id.button_export_items);
+        heatmapView = findViewById(R.id.heatmap);
+        heatmapDetailText = findViewById(R.id.text_heatmap_detail);
+        RadioGroup heatmapMetricGroup = findViewById(R.id.radio_group_heatmap_metric);
 
         fromDate = Calendar.getInstance();
         fromDate.add(Calendar.MONTH, -1);
@@ -88,7 +126,13 @@ public class ReportsActivity extends AppCompatActivity {
         toDateInput.setOnClickListener(v -> showDatePicker(false));
 
         generateButton.setOnClickListener(v -> generateReport());
-        exportButton.setOnClickListener(v -> exportReport());
+        exportButton.setOnClickListener(v -> exportReport(false));
+        exportItemsButton.setOnClickListener(v -> exportReport(true));
+        showMoreItemsButton.setOnClickListener(v -> loadTopItems(topItemsLimit + TOP_ITEMS_PAGE));
+        cancelExportButton.setOnClickListener(v -> exportCancelled = true);
+        heatmapMetricGroup.setOnCheckedChangeListener((group, checkedId) ->
+                heatmapView.setShowRevenue(checkedId == R.id.radio_heatmap_revenue));
+        heatmapView.setOnCellSelectedListener(this::showHeatmapCell);
     }
 
     private void showDatePicker(boolean isFromDate) {
@@ -111,43 +155,100 @@ public class ReportsActivity extends AppCompatActivity {
     }
 
     private void generateReport() {
-        Date startDate = fromDate.getTime();
-        Date endDate = toDate.getTime();
+        Calendar startCal = (Calendar) fromDate.clone();
+        startCal.set(Calendar.HOUR_OF_DAY, 0);
+        startCal.set(Calendar.MINUTE, 0);
+        startCal.set(Calendar.SECOND, 0);
+        startCal.set(Calendar.MILLISECOND, 0);
+        long startMillis = startCal.getTimeInMillis();
 
-        Calendar endCal = Calendar.getInstance();
-        endCal.setTime(endDate);
+        Calendar endCal = (Calendar) toDate.clone();
         endCal.set(Calendar.HOUR_OF_DAY, 23);
         endCal.set(Calendar.MINUTE, 59);
         endCal.set(Calendar.SECOND, 59);
-        endDate = endCal.getTime();
+        endCal.set(Calendar.MILLISECOND, 999);
+        long endMillis = endCal.getTimeInMillis();
 
-        currentOrders = dbHelper.getOrdersByDateRange(startDate, endDate);
+        generateButton.setEnabled(false);
+        repository.getSalesSummary(startMillis, endMillis, summary -> {
+            generateButton.setEnabled(true);
+            currentSummary = summary;
+            reportStartMillis = startMillis;
+            reportEndMillis = endMillis;
 
-        if (currentOrders.isEmpty()) {
-            Toast.makeText(this, R.string.no_orders, Toast.LENGTH_SHORT).show();
-            totalSalesText.setText("₹0.00");
-            totalOrdersText.setText("0");
-            averageOrderText.setText("₹0.00");
-            return;
-        }
+            totalSalesText.setText(Money.format(summary.getTotalSales()));
+            totalOrdersText.setText(String.valueOf(summary.getOrderCount()));
+            averageOrderText.setText(Money.format(summary.getAverageOrder()));
 
-        double totalSales = 0;
-        for (Order order : currentOrders) {
-            totalSales += order.getTotal();
-        }
+            topItemsLayout.removeAllViews();
+            showMoreItemsButton.setVisibility(View.GONE);
+            currentHeatmap = null;
+            heatmapView.setHeatmap(null);
+            heatmapDetailText.setText(R.string.heatmap_hint);
+
+            if (summary.isEmpty()) {
+                Toast.makeText(this, R.string.no_orders, Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            loadTopItems(TOP_ITEMS_PAGE);
+            loadHeatmap();
 
-        int totalOrders = currentOrders.size();
-        double averageOrder = totalSales / totalOrders;
+            Toast.makeText(this, R.string.success, Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    /**
+     * Ranked items for the current report. The query is cut off at {@code limit} rows and
+     * only rows not already on screen are inflated, so "show more" adds a page at a time.
+     */
+    private void loadTopItems(int limit) {
+        long startMillis = reportStartMillis;
+        long endMillis = reportEndMillis;
+        topItemsLimit = limit;
+        showMoreItemsButton.setEnabled(false);
+        repository.getTopItems(startMillis, endMillis, limit, items -> {
+            if (startMillis != reportStartMillis || endMillis != reportEndMillis || limit != topItemsLimit) {
+                return;
+            }
+            LayoutInflater inflater = getLayoutInflater();
+            for (int i = topItemsLayout.getChildCount(); i < items.size(); i++) {
+                ItemSales item = items.get(i);
+                View row = inflater.inflate(R.layout.item_top_item, topItemsLayout, false);
+                ((TextView) row.findViewById(R.id.text_name)).setText((i + 1) + ". " + item.getItemName());
+                ((TextView) row.findViewById(R.id.text_quantity))
+                        .setText(getString(R.string.items_sold, item.getQuantity()));
+                ((TextView) row.findViewById(R.id.text_revenue)).setText(Money.format(item.getRevenue()));
+                topItemsLayout.addView(row);
+            }
+            showMoreItemsButton.setEnabled(true);
+            showMoreItemsButton.setVisibility(items.size() == limit ? View.VISIBLE : View.GONE);
+        });
+    }
 
-        totalSalesText.setText(String.format(Locale.getDefault(), "₹%.2f", totalSales));
-        totalOrdersText.setText(String.valueOf(totalOrders));
-        averageOrderText.setText(String.format(Locale.getDefault(), "₹%.2f", averageOrder));
+    private void loadHeatmap() {
+        long startMillis = reportStartMillis;
+        long endMillis = reportEndMillis;
+        repository.getSalesHeatmap(startMillis, endMillis, heatmap -> {
+            if (startMillis != reportStartMillis || endMillis != reportEndMillis) {
+                return;
+            }
+            currentHeatmap = heatmap;
+            heatmapView.setHeatmap(heatmap);
+        });
+    }
 
-        Toast.makeText(this, R.string.success, Toast.LENGTH_SHORT).show();
+    private void showHeatmapCell(int day, int hour) {
+        String dayName = DateFormatSymbols.getInstance().getWeekdays()[SalesHeatmap.toCalendarDay(day)];
+        heatmapDetailText.setText(getString(R.string.heatmap_cell, dayName, hour, (hour + 1) % 24,
+                currentHeatmap.getCount(day, hour), Money.format(currentHeatmap.getRevenue(day, hour))));
     }
 
-    private void exportReport() {
-        if (currentOrders == null || currentOrders.isEmpty()) {
+    private void exportReport(boolean itemSales) {
+        if (exportRunning) {
+            return;
+        }
+        if (currentSummary == null || currentSummary.isEmpty()) {
             Toast.makeText(this, R.string.generate_report, Toast.LENGTH_SHORT).show();
             return;
         }
@@ -155,6 +256,7 @@ public class ReportsActivity extends AppCompatActivity {
         if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.P) {
             if (ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE)
                     != PackageManager.PERMISSION_GRANTED) {
+                pendingItemSalesExport = itemSales;
                 ActivityCompat.requestPermissions(this,
                         new String[]{Manifest.permission.WRITE_EXTERNAL_STORAGE},
                         PERMISSION_REQUEST_CODE);
@@ -162,14 +264,76 @@ public class ReportsActivity extends AppCompatActivity {
             }
         }
 
-        try {
-            File csvFile = CSVExporter.exportOrders(this, currentOrders);
-            Toast.makeText(this, getString(R.string.report_exported) + "\n" + csvFile.getAbsolutePath(),
-                    Toast.LENGTH_LONG).show();
-        } catch (Exception e) {
-            Toast.makeText(this, getString(R.string.error) + ": " + e.getMessage(),
-                    Toast.LENGTH_SHORT).show();
+        exportRunning = true;
+        exportCancelled = false;
+        exportButton.setEnabled(false);
+        exportItemsButton.setEnabled(false);
+        exportProgressBar.setProgress(0);
+        exportProgressText.setText(null);
+        exportProgressLayout.setVisibility(View.VISIBLE);
+
+        Context appContext = getApplicationContext();
+        long startMillis = reportStartMillis;
+        long endMillis = reportEndMillis;
+        Executor mainThread = AppExecutors.getInstance().mainThread();
+        AppExecutors.getInstance().fileIO().execute(() -> {
+            CSVExporter.ExportListener listener = new CSVExporter.ExportListener() {
+                @Override
+                public void onProgress(int rowsWritten, int totalRows) {
+                    mainThread.execute(() -> showExportProgress(rowsWritten, totalRows));
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return exportCancelled;
+                }
+            };
+            int totalRows = itemSales
+                    ? repository.countItemSalesForExport(startMillis, endMillis)
+                    : repository.countOrdersForExport(startMillis, endMillis);
+            Cursor cursor = itemSales
+                    ? repository.queryItemSalesForExport(startMillis, endMillis)
+                    : repository.queryOrdersForExport(startMillis, endMillis);
+            try {
+                File csvFile = itemSales
+                        ? CSVExporter.exportItemSales(appContext, cursor, totalRows, listener)
+                        : CSVExporter.exportOrders(appContext, cursor, totalRows, listener);
+                mainThread.execute(() -> onExportFinished(
+                        getString(R.string.report_exported) + "\n" + csvFile.getAbsolutePath(),
+                        Toast.LENGTH_LONG));
+            } catch (CancellationException e) {
+                mainThread.execute(() -> onExportFinished(getString(R.string.export_cancelled),
+                        Toast.LENGTH_SHORT));
+            } catch (Exception e) {
+                mainThread.execute(() -> onExportFinished(getString(R.string.error) + ": " + e.getMessage(),
+                        Toast.LENGTH_SHORT));
+            } finally {
+                cursor.close();
+            }
+        });
+    }
+
+    private void showExportProgress(int rowsWritten, int totalRows) {
+        exportProgressBar.setMax(Math.max(totalRows, 1));
+        exportProgressBar.setProgress(rowsWritten);
+        exportProgressText.setText(getString(R.string.exporting_progress, rowsWritten, totalRows));
+    }
+
+    private void onExportFinished(String message, int duration) {
+        exportRunning = false;
+        if (isFinishing()) {
+            return;
         }
+        exportButton.setEnabled(true);
+        exportItemsButton.setEnabled(true);
+        exportProgressLayout.setVisibility(View.GONE);
+        Toast.makeText(this, message, duration).show();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        exportCancelled = true;
     }
 
     @Override
@@ -178,18 +342,10 @@ public class ReportsActivity extends AppCompatActivity {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
         if (requestCode == PERMISSION_REQUEST_CODE) {
             if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
-                exportReport();
+                exportReport(pendingItemSalesExport);
             } else {
                 Toast.makeText(this, "Permission denied", Toast.LENGTH_SHORT).show();
             }
         }
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (dbHelper != null) {
-            dbHelper.close();
-        }
-    }
 }
@@ -15,14 +15,20 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.android.material.appbar.MaterialToolbar;
 import com.tandoornightcafe.app.R;
-import com.tandoornightcafe.app.db.DBHelper;
+import com.tandoornightcafe.app.TandoorApp;
+import com.tandoornightcafe.app.model.AppSettings;
 import com.tandoornightcafe.app.util.LocaleHelper;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class SettingsActivity extends AppCompatActivity {
-    private DBHelper dbHelper;
     private RadioGroup languageGroup;
     private RadioButton englishRadio;
     private RadioButton hindiRadio;
+    private RadioButton receiptPdfRadio;
+    private RadioButton receiptThermal58Radio;
+    private RadioButton receiptThermal80Radio;
     private EditText taxRateInput;
     private EditText restaurantNameInput;
     private EditText restaurantAddressInput;
@@ -33,15 +39,15 @@ public class SettingsActivity extends AppCompatActivity {
 
     @Override
     protected void attachBaseContext(Context newBase) {
-        DBHelper tempHelper = new DBHelper(newBase);
-        String language = tempHelper.getSetting("language");
-        tempHelper.close();
-        super.attachBaseContext(LocaleHelper.applyLocale(newBase, language != null ? language : "en"));
+        super.attachBaseContext(LocaleHelper.wrap(newBase));
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (SplashActivity.relaunchIfNotReady(this)) {
+            return;
+        }
         setContentView(R.layout.activity_settings);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
@@ -51,11 +57,12 @@ public class SettingsActivity extends AppCompatActivity {
         }
         toolbar.setNavigationOnClickListener(v -> finish());
 
-        dbHelper = new DBHelper(this);
-
         languageGroup = findViewById(R.id.radio_group_language);
         englishRadio = findViewById(R.id.radio_english);
         hindiRadio = findViewById(R.id.radio_hindi);
+        receiptPdfRadio = findViewById(R.id.radio_receipt_pdf);
+        receiptThermal58Radio = findViewById(R.id.radio_receipt_thermal_58);
+        receiptThermal80Radio = findViewById(R.id.radio_receipt_thermal_80);
         taxRateInput = findViewById(R.id.input_tax_rate);
         restaurantNameInput = findViewById(R.id.input_restaurant_name);
         restaurantAddressInput = findViewById(R.id.input_restaurant_address);
@@ -68,8 +75,8 @@ public class SettingsActivity extends AppCompatActivity {
     }
 
     private void loadSettings() {
-        currentLanguage = dbHelper.getSetting("language");
-        if (currentLanguage == null) currentLanguage = "en";
+        AppSettings settings = TandoorApp.settings(this);
+        currentLanguage = settings.getLanguage();
         
         if (currentLanguage.equals("hi")) {
             hindiRadio.setChecked(true);
@@ -77,22 +84,34 @@ public class SettingsActivity extends AppCompatActivity {
             englishRadio.setChecked(true);
         }
 
-        String taxRate = dbHelper.getSetting("tax_rate");
+        switch (settings.getReceiptFormat()) {
+            case AppSettings.RECEIPT_FORMAT_ESCPOS_58:
+                receiptThermal58Radio.setChecked(true);
+                break;
+            case AppSettings.RECEIPT_FORMAT_ESCPOS_80:
+                receiptThermal80Radio.setChecked(true);
+                break;
+            default:
+                receiptPdfRadio.setChecked(true);
+                break;
+        }
+
+        String taxRate = settings.get(AppSettings.KEY_TAX_RATE);
         if (taxRate != null) {
             taxRateInput.setText(taxRate);
         }
 
-        String restaurantName = dbHelper.getSetting("restaurant_name");
+        String restaurantName = settings.getRestaurantName();
         if (restaurantName != null) {
             restaurantNameInput.setText(restaurantName);
         }
 
-        String restaurantAddress = dbHelper.getSetting("restaurant_address");
+        String restaurantAddress = settings.getRestaurantAddress();
         if (restaurantAddress != null) {
             restaurantAddressInput.setText(restaurantAddress);
         }
 
-        String restaurantPhone = dbHelper.getSetting("restaurant_phone");
+        String restaurantPhone = settings.getRestaurantPhone();
         if (restaurantPhone != null) {
             restaurantPhoneInput.setText(restaurantPhone);
         }
@@ -100,6 +119,9 @@ public class SettingsActivity extends AppCompatActivity {
 
     private void saveSettings() {
         String selectedLanguage = englishRadio.isChecked() ? "en" : "hi";
+        String receiptFormat = receiptThermal58Radio.isChecked() ? AppSettings.RECEIPT_FORMAT_ESCPOS_58
+                : receiptThermal80Radio.isChecked() ? AppSettings.RECEIPT_FORMAT_ESCPOS_80
+                : AppSettings.RECEIPT_FORMAT_PDF;
         String taxRate = taxRateInput.getText().toString().trim();
         String restaurantName = restaurantNameInput.getText().toString().trim();
         String restaurantAddress = restaurantAddressInput.getText().toString().trim();
@@ -127,34 +149,32 @@ public class SettingsActivity extends AppCompatActivity {
             return;
         }
 
-        dbHelper.setSetting("language", selectedLanguage);
-        dbHelper.setSetting("tax_rate", taxRate);
-        dbHelper.setSetting("restaurant_name", restaurantName);
-        dbHelper.setSetting("restaurant_address", restaurantAddress);
-        dbHelper.setSetting("restaurant_phone", restaurantPhone);
-
-        Toast.makeText(this, R.string.settings_saved, Toast.LENGTH_SHORT).show();
-
-        if (!selectedLanguage.equals(currentLanguage)) {
-            new AlertDialog.Builder(this)
-                    .setTitle(R.string.language)
-                    .setMessage("Restart app to apply language change / भाषा परिवर्तन लागू करने के लिए ऐप पुनः प्रारंभ करें")
-                    .setPositiveButton(R.string.ok, (dialog, which) -> {
-                        Intent intent = new Intent(SettingsActivity.this, SplashActivity.class);
-                        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-                        startActivity(intent);
-                        finish();
-                    })
-                    .setCancelable(false)
-                    .show();
-        }
-    }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (dbHelper != null) {
-            dbHelper.close();
-        }
+        Map<String, String> settings = new HashMap<>();
+        settings.put(AppSettings.KEY_LANGUAGE, selectedLanguage);
+        settings.put(AppSettings.KEY_TAX_RATE, taxRate);
+        settings.put(AppSettings.KEY_RESTAURANT_NAME, restaurantName);
+        settings.put(AppSettings.KEY_RESTAURANT_ADDRESS, restaurantAddress);
+        settings.put(AppSettings.KEY_RESTAURANT_PHONE, restaurantPhone);
+        settings.put(AppSettings.KEY_RECEIPT_FORMAT, receiptFormat);
+
+        saveButton.setEnabled(false);
+        TandoorApp.settingsStore(this).update(settings, saved -> {
+            saveButton.setEnabled(true);
+            Toast.makeText(this, R.string.settings_saved, Toast.LENGTH_SHORT).show();
+
+            if (!selectedLanguage.equals(currentLanguage)) {
+                new AlertDialog.Builder(this)
+                        .setTitle(R.string.language)
+                        .setMessage("Restart app to apply language change / भाषा परिवर्तन लागू करने के लिए ऐप पुनः प्रारंभ करें")
+                        .setPositiveButton(R.string.ok, (dialog, which) -> {
+                            Intent intent = new Intent(SettingsActivity.this, SplashActivity.class);
+                            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+                            startActivity(intent);
+                            finish();
+                        })
+                        .setCancelable(false)
+                        .show();
+            }
+        });
     }
 }
@@ -1,14 +1,16 @@
 package com.tandoornightcafe.app.ui;
 
+import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.tandoornightcafe.app.R;
-import com.tandoornightcafe.app.db.DBHelper;
+import com.tandoornightcafe.app.TandoorApp;
 import com.tandoornightcafe.app.util.LocaleHelper;
 
 public class SplashActivity extends AppCompatActivity {
@@ -19,17 +21,31 @@ public class SplashActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
 
-        DBHelper dbHelper = new DBHelper(this);
-        String language = dbHelper.getSetting("language");
-        if (language != null) {
-            LocaleHelper.applyLocale(this, language);
-        }
-        dbHelper.close();
+        long shownAt = SystemClock.uptimeMillis();
+        TandoorApp.settingsStore(this).whenLoaded(() -> {
+            LocaleHelper.applyLocale(this, TandoorApp.settings(this).getLanguage());
+            long remaining = SPLASH_DURATION - (SystemClock.uptimeMillis() - shownAt);
+            new Handler(Looper.getMainLooper()).postDelayed(() -> {
+                Intent intent = new Intent(SplashActivity.this, HomeActivity.class);
+                startActivity(intent);
+                finish();
+            }, Math.max(0, remaining));
+        });
+    }
 
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            Intent intent = new Intent(SplashActivity.this, HomeActivity.class);
-            startActivity(intent);
-            finish();
-        }, SPLASH_DURATION);
+    /**
+     * For the other activities' onCreate. When the system restores one of them into a fresh
+     * process the settings may not be loaded yet, so the app starts again from the splash
+     * screen; the caller should return straight away when this returns true.
+     */
+    public static boolean relaunchIfNotReady(Activity activity) {
+        if (TandoorApp.settings(activity) != null) {
+            return false;
+        }
+        Intent intent = new Intent(activity, SplashActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        activity.startActivity(intent);
+        activity.finish();
+        return true;
     }
 }
@@ -0,0 +1,76 @@
+package com.tandoornightcafe.app.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide thread pools. Database writes are serialized on a single thread so
+ * transactions never queue behind each other on the SQLite lock; WAL lets the small
+ * reader pool run alongside them.
+ */
+public final class AppExecutors {
+    private static final int DB_READER_THREADS = 3;
+
+    private static volatile AppExecutors instance;
+
+    private final ExecutorService dbWriter;
+    private final ExecutorService dbReaders;
+    private final ExecutorService fileIO;
+    private final ExecutorService invoiceRenderer;
+    private final Executor mainThread;
+
+    public static AppExecutors getInstance() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private AppExecutors() {
+        dbWriter = Executors.newSingleThreadExecutor(namedThreads("db-writer"));
+        dbReaders = Executors.newFixedThreadPool(DB_READER_THREADS, namedThreads("db-reader"));
+        fileIO = Executors.newSingleThreadExecutor(namedThreads("file-io"));
+        invoiceRenderer = Executors.newSingleThreadExecutor(namedThreads("invoice-renderer"));
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    public Executor dbWriter() {
+        return dbWriter;
+    }
+
+    public Executor dbReaders() {
+        return dbReaders;
+    }
+
+    public Executor fileIO() {
+        return fileIO;
+    }
+
+    public Executor invoiceRenderer() {
+        return invoiceRenderer;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+    }
+}
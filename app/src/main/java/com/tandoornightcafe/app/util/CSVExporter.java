@@ -1,60 +1,158 @@
 package com.tandoornightcafe.app.util;
 
 import android.content.Context;
-import android.os.Environment;
+import android.database.Cursor;
 
-import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.db.DocumentStore;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
-import java.util.List;
+import java.util.Calendar;
+import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.CancellationException;
 
 public class CSVExporter {
-    
-    public static File exportOrders(Context context, List<Order> orders) throws IOException {
-        File directory = new File(context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), "Reports");
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 500;
 
-        SimpleDateFormat fileNameFormat = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault());
-        String fileName = "Sales_Report_" + fileNameFormat.format(new java.util.Date()) + ".csv";
-        File file = new File(directory, fileName);
-
-        FileWriter writer = new FileWriter(file);
-        
-        writer.append("Invoice Number,Date,Customer Name,Customer Phone,Subtotal,Tax,Total,Payment Method,Status\n");
-
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
-        
-        for (Order order : orders) {
-            writer.append(escapeCSV(order.getInvoiceNumber())).append(",");
-            writer.append(escapeCSV(dateFormat.format(order.getOrderDate()))).append(",");
-            writer.append(escapeCSV(order.getCustomerName())).append(",");
-            writer.append(escapeCSV(order.getCustomerPhone() != null ? order.getCustomerPhone() : "")).append(",");
-            writer.append(String.format(Locale.US, "%.2f", order.getSubtotal())).append(",");
-            writer.append(String.format(Locale.US, "%.2f", order.getTax())).append(",");
-            writer.append(String.format(Locale.US, "%.2f", order.getTotal())).append(",");
-            writer.append(escapeCSV(order.getPaymentMethod())).append(",");
-            writer.append(escapeCSV(order.getStatus())).append("\n");
-        }
+    public interface ExportListener {
+        void onProgress(int rowsWritten, int totalRows);
+        boolean isCancelled();
+    }
+
+    /**
+     * Streams rows from a cursor shaped like {@code DBHelper.queryOrdersForExport}. Call off
+     * the main thread; the cursor is left open for the caller to close. {@code totalRows} only
+     * drives progress, so it comes from a separate COUNT(*) rather than
+     * {@link Cursor#getCount()}, which would run the whole query once before streaming.
+     */
+    public static File exportOrders(Context context, Cursor cursor, int totalRows, ExportListener listener)
+            throws IOException {
+        Calendar calendar = Calendar.getInstance();
+        return export(context, "Sales_Report_",
+                "Invoice Number,Date,Customer Name,Customer Phone,Subtotal,Tax,Total,Payment Method,Status\n",
+                cursor, totalRows, listener, (row, c) -> {
+                    appendCSV(row, c.getString(0)).append(',');
+                    appendDate(row, calendar, c.getLong(1)).append(',');
+                    appendCSV(row, c.getString(2)).append(',');
+                    appendCSV(row, c.getString(3)).append(',');
+                    Money.appendPlain(row, c.getLong(4)).append(',');
+                    Money.appendPlain(row, c.getLong(5)).append(',');
+                    Money.appendPlain(row, c.getLong(6)).append(',');
+                    appendCSV(row, c.getString(7)).append(',');
+                    appendCSV(row, c.getString(8));
+                });
+    }
+
+    /**
+     * Streams rows from a cursor shaped like {@code DBHelper.queryItemSalesForExport}, already
+     * ranked by revenue. Same threading and cursor rules as {@link #exportOrders}.
+     */
+    public static File exportItemSales(Context context, Cursor cursor, int totalRows, ExportListener listener)
+            throws IOException {
+        int[] rank = {0};
+        return export(context, "Item_Sales_", "Rank,Item,Quantity,Revenue\n",
+                cursor, totalRows, listener, (row, c) -> {
+                    row.append(++rank[0]).append(',');
+                    appendCSV(row, c.getString(1)).append(',');
+                    row.append(c.getInt(2)).append(',');
+                    Money.appendPlain(row, c.getLong(3));
+                });
+    }
+
+    private interface RowFormatter {
+        void append(StringBuilder row, Cursor cursor);
+    }
+
+    private static File export(Context context, String filePrefix, String header, Cursor cursor,
+                               int totalRows, ExportListener listener, RowFormatter formatter)
+            throws IOException {
+        DocumentStore store = DocumentStore.getInstance(context);
+        SimpleDateFormat fileNameFormat = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US);
+        String fileName = filePrefix + fileNameFormat.format(new Date()) + ".csv";
+        File file = store.newReportFile(fileName);
+        int rowsWritten = 0;
+        boolean completed = false;
 
-        writer.flush();
-        writer.close();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            writer.write(header);
+
+            StringBuilder row = new StringBuilder(256);
+            while (cursor.moveToNext()) {
+                row.setLength(0);
+                formatter.append(row, cursor);
+                writer.append(row.append('\n'));
+
+                rowsWritten++;
+                if (rowsWritten % PROGRESS_INTERVAL == 0) {
+                    if (listener.isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    listener.onProgress(rowsWritten, Math.max(totalRows, rowsWritten));
+                }
+            }
+            listener.onProgress(rowsWritten, Math.max(totalRows, rowsWritten));
+            completed = true;
+        } finally {
+            writer.close();
+            if (!completed) {
+                file.delete();
+            }
+        }
+        store.register(DocumentStore.KIND_REPORT, fileName, file);
 
         return file;
     }
 
-    private static String escapeCSV(String value) {
+    // dd/MM/yyyy HH:mm without a SimpleDateFormat or String per row.
+    private static StringBuilder appendDate(StringBuilder sb, Calendar calendar, long millis) {
+        calendar.setTimeInMillis(millis);
+        appendTwoDigits(sb, calendar.get(Calendar.DAY_OF_MONTH)).append('/');
+        appendTwoDigits(sb, calendar.get(Calendar.MONTH) + 1).append('/');
+        sb.append(calendar.get(Calendar.YEAR)).append(' ');
+        appendTwoDigits(sb, calendar.get(Calendar.HOUR_OF_DAY)).append(':');
+        return appendTwoDigits(sb, calendar.get(Calendar.MINUTE));
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        return sb.append(value);
+    }
+
+    private static StringBuilder appendCSV(StringBuilder sb, String value) {
         if (value == null) {
-            return "";
+            return sb;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes) {
+            return sb.append(value);
         }
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
+        sb.append('"');
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
         }
-        return value;
+        return sb.append('"');
     }
 }
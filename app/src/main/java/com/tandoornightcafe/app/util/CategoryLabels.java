@@ -0,0 +1,30 @@
+package com.tandoornightcafe.app.util;
+
+import android.content.Context;
+
+import com.tandoornightcafe.app.R;
+import com.tandoornightcafe.app.model.Category;
+
+/** Localized display names for category codes. */
+public final class CategoryLabels {
+    private CategoryLabels() {
+    }
+
+    public static String of(Context context, Category category) {
+        switch (category.getCode()) {
+            case Category.CODE_APPETIZER:
+                return context.getString(R.string.category_appetizer);
+            case Category.CODE_MAIN_COURSE:
+                return context.getString(R.string.category_main_course);
+            case Category.CODE_BREAD:
+                return context.getString(R.string.category_bread);
+            case Category.CODE_BEVERAGE:
+                return context.getString(R.string.category_beverage);
+            case Category.CODE_DESSERT:
+                return context.getString(R.string.category_dessert);
+            default:
+                // Categories carried over from free-text names keep that name as their code.
+                return category.getCode();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.tandoornightcafe.app.util;
+
+import com.tandoornightcafe.app.db.DocumentStore;
+import com.tandoornightcafe.app.model.AppSettings;
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.OrderItem;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Receipt as a raw ESC/POS byte stream for 58mm and 80mm thermal printers, laid out in fixed
+ * columns. Printer fonts are ASCII only, so the rupee sign is written as "Rs." and any other
+ * non-ASCII character as '?'. The byte buffer is reused between receipts, so an instance
+ * must only be used from one thread.
+ */
+public class EscPosReceiptRenderer implements ReceiptRenderer {
+    public static final int COLUMNS_58MM = 32;
+    public static final int COLUMNS_80MM = 48;
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte LF = 0x0A;
+    private static final int ALIGN_LEFT = 0;
+    private static final int ALIGN_CENTER = 1;
+    private static final int FEED_BEFORE_CUT = 4;
+
+    private final int columns;
+    private final StringBuilder line = new StringBuilder(COLUMNS_80MM);
+    private final StringBuilder amount = new StringBuilder(16);
+    private final Calendar calendar = Calendar.getInstance();
+    private byte[] buffer = new byte[2048];
+    private int length;
+
+    public EscPosReceiptRenderer(int columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public String getDocumentKind() {
+        return DocumentStore.KIND_RECEIPT;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".escpos";
+    }
+
+    @Override
+    public String getMimeType() {
+        return "application/octet-stream";
+    }
+
+    @Override
+    public void render(File target, Order order, List<OrderItem> items, AppSettings settings)
+            throws IOException {
+        OutputStream out = new FileOutputStream(target);
+        try {
+            write(out, order, items, settings);
+        } finally {
+            out.close();
+        }
+    }
+
+    public void write(OutputStream out, Order order, List<OrderItem> items, AppSettings settings)
+            throws IOException {
+        length = 0;
+        command(ESC, '@');
+
+        align(ALIGN_CENTER);
+        bold(true);
+        command(GS, '!', 0x01);
+        wrapped(settings.getRestaurantName());
+        command(GS, '!', 0x00);
+        bold(false);
+        String address = settings.getRestaurantAddress();
+        if (address != null && !address.isEmpty()) {
+            for (String part : address.split("\n")) {
+                wrapped(part);
+            }
+        }
+        String phone = settings.getRestaurantPhone();
+        if (phone != null && !phone.isEmpty()) {
+            wrapped("Ph: " + phone);
+        }
+
+        align(ALIGN_LEFT);
+        rule();
+        wrapped("Invoice: " + order.getInvoiceNumber());
+        line.setLength(0);
+        line.append("Date: ");
+        appendDate(order.getOrderDate());
+        println(line);
+        wrapped("Customer: " + order.getCustomerName());
+        if (order.getCustomerPhone() != null && !order.getCustomerPhone().isEmpty()) {
+            wrapped("Phone: " + order.getCustomerPhone());
+        }
+        rule();
+        columns("Item", "Amount");
+        rule();
+
+        for (int i = 0, size = items.size(); i < size; i++) {
+            OrderItem item = items.get(i);
+            wrapped(item.getItemName());
+            line.setLength(0);
+            line.append("  ").append(item.getQuantity()).append(" x ");
+            Money.appendPlain(line, item.getPrice());
+            amount.setLength(0);
+            Money.appendPlain(amount, item.getSubtotal());
+            columns(line.toString(), amount);
+        }
+
+        rule();
+        total("Subtotal", order.getSubtotal());
+        total("Tax", order.getTax());
+        bold(true);
+        total("TOTAL", order.getTotal());
+        bold(false);
+        if (order.getPaymentMethod() != null) {
+            wrapped("Paid by: " + order.getPaymentMethod());
+        }
+        rule();
+
+        align(ALIGN_CENTER);
+        wrapped("Thank you! Visit again");
+        command(ESC, 'd', FEED_BEFORE_CUT);
+        command(GS, 'V', 66, 0);
+
+        out.write(buffer, 0, length);
+    }
+
+    private void total(String label, long paise) {
+        amount.setLength(0);
+        amount.append("Rs. ");
+        Money.appendPlain(amount, paise);
+        columns(label, amount);
+    }
+
+    /** Left text, truncated if needed, and right-aligned text on one line. */
+    private void columns(String left, CharSequence right) {
+        int room = Math.max(0, columns - right.length() - 1);
+        line.setLength(0);
+        line.append(left, 0, Math.min(left.length(), room));
+        while (line.length() < columns - right.length()) {
+            line.append(' ');
+        }
+        line.append(right);
+        println(line);
+    }
+
+    private void wrapped(String text) {
+        if (text == null) {
+            text = "";
+        }
+        int start = 0;
+        do {
+            int end = Math.min(text.length(), start + columns);
+            if (end < text.length()) {
+                int space = text.lastIndexOf(' ', end);
+                if (space > start) {
+                    end = space;
+                }
+            }
+            line.setLength(0);
+            line.append(text, start, end);
+            println(line);
+            start = end;
+            while (start < text.length() && text.charAt(start) == ' ') {
+                start++;
+            }
+        } while (start < text.length());
+    }
+
+    private void rule() {
+        line.setLength(0);
+        for (int i = 0; i < columns; i++) {
+            line.append('-');
+        }
+        println(line);
+    }
+
+    private void appendDate(long millis) {
+        calendar.setTimeInMillis(millis);
+        twoDigits(calendar.get(Calendar.DAY_OF_MONTH)).append('/');
+        twoDigits(calendar.get(Calendar.MONTH) + 1).append('/');
+        line.append(calendar.get(Calendar.YEAR)).append(' ');
+        twoDigits(calendar.get(Calendar.HOUR_OF_DAY)).append(':');
+        twoDigits(calendar.get(Calendar.MINUTE));
+    }
+
+    private StringBuilder twoDigits(int value) {
+        if (value < 10) {
+            line.append('0');
+        }
+        return line.append(value);
+    }
+
+    private void println(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c < 0x7F) {
+                put(c);
+            } else if (c == '₹') {
+                put('R');
+                put('s');
+                put('.');
+            } else {
+                put('?');
+            }
+        }
+        put(LF);
+    }
+
+    private void align(int alignment) {
+        command(ESC, 'a', alignment);
+    }
+
+    private void bold(boolean on) {
+        command(ESC, 'E', on ? 1 : 0);
+    }
+
+    private void command(int... bytes) {
+        for (int b : bytes) {
+            put(b);
+        }
+    }
+
+    private void put(int b) {
+        if (length == buffer.length) {
+            byte[] grown = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+        buffer[length++] = (byte) b;
+    }
+}
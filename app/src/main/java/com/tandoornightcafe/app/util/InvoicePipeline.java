@@ -0,0 +1,205 @@
+package com.tandoornightcafe.app.util;
+
+import android.content.Context;
+
+import com.tandoornightcafe.app.db.DocumentStore;
+import com.tandoornightcafe.app.model.AppSettings;
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.OrderItem;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Renders invoices in the background, starting as soon as an order is committed, and
+ * memoizes the result per invoice number and receipt format. The format setting picks the
+ * {@link ReceiptRenderer}: an A4 PDF or an ESC/POS stream for a thermal printer. Invoices
+ * already in the {@link DocumentStore} are reused rather than rendered. Save and share then get the finished file at once,
+ * or queue behind the job already in flight, instead of rendering again.
+ */
+public final class InvoicePipeline {
+    public interface Listener {
+        void onRendered(File invoiceFile);
+
+        void onFailed(Exception error);
+    }
+
+    private static final int MAX_REMEMBERED_JOBS = 32;
+
+    private static volatile InvoicePipeline instance;
+
+    private final AppExecutors executors;
+    private final ReceiptRenderer pdfRenderer = new PdfReceiptRenderer();
+    // Reuse their byte buffers; only ever called on the single invoice renderer thread.
+    private final ReceiptRenderer thermal58Renderer =
+            new EscPosReceiptRenderer(EscPosReceiptRenderer.COLUMNS_58MM);
+    private final ReceiptRenderer thermal80Renderer =
+            new EscPosReceiptRenderer(EscPosReceiptRenderer.COLUMNS_80MM);
+    private final Map<String, RenderJob> jobs =
+            new LinkedHashMap<String, RenderJob>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RenderJob> eldest) {
+                    return size() > MAX_REMEMBERED_JOBS;
+                }
+            };
+
+    public static InvoicePipeline getInstance() {
+        if (instance == null) {
+            synchronized (InvoicePipeline.class) {
+                if (instance == null) {
+                    instance = new InvoicePipeline(AppExecutors.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private InvoicePipeline(AppExecutors executors) {
+        this.executors = executors;
+    }
+
+    public ReceiptRenderer rendererFor(AppSettings settings) {
+        switch (settings.getReceiptFormat()) {
+            case AppSettings.RECEIPT_FORMAT_ESCPOS_58:
+                return thermal58Renderer;
+            case AppSettings.RECEIPT_FORMAT_ESCPOS_80:
+                return thermal80Renderer;
+            default:
+                return pdfRenderer;
+        }
+    }
+
+    /** Starts rendering unless this invoice already has a running or finished job. */
+    public void prepare(Context context, Order order, List<OrderItem> items, AppSettings settings) {
+        jobFor(context, order, items, settings);
+    }
+
+    /** Delivers the rendered file on the main thread, rendering first if nothing was prepared. */
+    public void get(Context context, Order order, List<OrderItem> items, AppSettings settings,
+                    Listener listener) {
+        jobFor(context, order, items, settings).addListener(listener);
+    }
+
+    /** Cancels an unfinished job, for an invoice nobody is going to save or share. */
+    public void cancel(String invoiceNumber, AppSettings settings) {
+        String key = jobKey(invoiceNumber, rendererFor(settings));
+        RenderJob job;
+        synchronized (jobs) {
+            job = jobs.get(key);
+            if (job == null || job.isDone()) {
+                return;
+            }
+            jobs.remove(key);
+        }
+        job.cancel(true);
+    }
+
+    private RenderJob jobFor(Context context, Order order, List<OrderItem> items, AppSettings settings) {
+        ReceiptRenderer renderer = rendererFor(settings);
+        String key = jobKey(order.getInvoiceNumber(), renderer);
+        RenderJob job;
+        synchronized (jobs) {
+            job = jobs.get(key);
+            if (job != null && !job.isStale()) {
+                return job;
+            }
+            job = new RenderJob(context.getApplicationContext(), order, items, settings, renderer);
+            jobs.put(key, job);
+        }
+        executors.invoiceRenderer().execute(job);
+        return job;
+    }
+
+    private static String jobKey(String invoiceNumber, ReceiptRenderer renderer) {
+        return invoiceNumber + renderer.getFileExtension();
+    }
+
+    private final class RenderJob extends FutureTask<File> {
+        private final List<Listener> listeners = new ArrayList<>();
+
+        RenderJob(Context context, Order order, List<OrderItem> items, AppSettings settings,
+                  ReceiptRenderer renderer) {
+            super(() -> {
+                DocumentStore store = DocumentStore.getInstance(context);
+                String invoiceNumber = order.getInvoiceNumber();
+                File stored = store.findInvoice(renderer.getDocumentKind(), invoiceNumber);
+                if (stored != null) {
+                    return stored;
+                }
+                File invoiceFile = store.newInvoiceFile(invoiceNumber, renderer.getFileExtension());
+                renderer.render(invoiceFile, order, items, settings);
+                if (Thread.currentThread().isInterrupted()) {
+                    invoiceFile.delete();
+                    throw new CancellationException();
+                }
+                store.register(renderer.getDocumentKind(), invoiceNumber, invoiceFile);
+                return invoiceFile;
+            });
+        }
+
+        /** A job that failed or was cancelled is rendered again on the next request. */
+        boolean isStale() {
+            if (!isDone()) {
+                return false;
+            }
+            try {
+                get();
+                return false;
+            } catch (InterruptedException | ExecutionException | CancellationException e) {
+                return true;
+            }
+        }
+
+        void addListener(Listener listener) {
+            synchronized (listeners) {
+                if (!isDone()) {
+                    listeners.add(listener);
+                    return;
+                }
+            }
+            deliver(listener);
+        }
+
+        @Override
+        protected void done() {
+            List<Listener> pending;
+            synchronized (listeners) {
+                pending = new ArrayList<>(listeners);
+                listeners.clear();
+            }
+            for (Listener listener : pending) {
+                deliver(listener);
+            }
+        }
+
+        private void deliver(Listener listener) {
+            if (isCancelled()) {
+                return;
+            }
+            File invoiceFile = null;
+            Exception error = null;
+            try {
+                invoiceFile = get();
+            } catch (ExecutionException e) {
+                error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            } catch (InterruptedException | CancellationException e) {
+                error = e;
+            }
+            File result = invoiceFile;
+            Exception failure = error;
+            executors.mainThread().execute(() -> {
+                if (failure == null) {
+                    listener.onRendered(result);
+                } else {
+                    listener.onFailed(failure);
+                }
+            });
+        }
+    }
+}
@@ -5,6 +5,9 @@ import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.os.Build;
 
+import com.tandoornightcafe.app.TandoorApp;
+import com.tandoornightcafe.app.model.AppSettings;
+
 import java.util.Locale;
 
 public class LocaleHelper {
@@ -33,4 +36,13 @@ public class LocaleHelper {
         }
         return setLocale(context, languageCode);
     }
+
+    /**
+     * Wraps an activity's base context in the saved language from the settings snapshot. Before
+     * the snapshot is loaded the base is returned as is; see {@code SplashActivity.relaunchIfNotReady}.
+     */
+    public static Context wrap(Context base) {
+        AppSettings settings = TandoorApp.settings(base);
+        return settings != null ? applyLocale(base, settings.getLanguage()) : base;
+    }
 }
@@ -0,0 +1,71 @@
+package com.tandoornightcafe.app.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money is carried everywhere as a {@code long} count of paise so sums stay exact
+ * and SQLite {@code SUM()} works on integers. Only this class converts to and from
+ * rupee text.
+ */
+public final class Money {
+    public static final String RUPEE = "₹";
+
+    private Money() {
+    }
+
+    public static long parse(String rupees) {
+        try {
+            return new BigDecimal(rupees.trim())
+                    .setScale(2, RoundingMode.HALF_UP)
+                    .movePointRight(2)
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + rupees);
+        }
+    }
+
+    /** Rounds the way {@code String.format("%.2f")} displayed the old REAL amounts. */
+    public static long fromRupees(double rupees) {
+        return BigDecimal.valueOf(rupees)
+                .setScale(2, RoundingMode.HALF_UP)
+                .movePointRight(2)
+                .longValueExact();
+    }
+
+    public static String format(long paise) {
+        StringBuilder sb = new StringBuilder(16).append(RUPEE);
+        return appendPlain(sb, paise).toString();
+    }
+
+    public static String toPlainString(long paise) {
+        return appendPlain(new StringBuilder(16), paise).toString();
+    }
+
+    public static StringBuilder appendPlain(StringBuilder sb, long paise) {
+        if (paise < 0) {
+            sb.append('-');
+            paise = -paise;
+        }
+        long fraction = paise % 100;
+        sb.append(paise / 100).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    public static int toBasisPoints(double percent) {
+        return (int) Math.round(percent * 100);
+    }
+
+    /** Rounds half up to the nearest paisa. */
+    public static long percentOf(long paise, int basisPoints) {
+        return (paise * basisPoints + 5000) / 10000;
+    }
+
+    /** Rounds half up to the nearest paisa. */
+    public static long average(long totalPaise, long count) {
+        return count == 0 ? 0 : (totalPaise + count / 2) / count;
+    }
+}
@@ -1,8 +1,5 @@
 package com.tandoornightcafe.app.util;
 
-import android.content.Context;
-import android.os.Environment;
-
 import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Element;
@@ -28,17 +25,9 @@ public class PDFGenerator {
     private static final Font HEADER_FONT = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
     private static final Font NORMAL_FONT = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
 
-    public static File generateInvoice(Context context, Order order, List<OrderItem> items,
+    public static File generateInvoice(File file, Order order, List<OrderItem> items,
                                       String restaurantName, String restaurantAddress, 
                                       String restaurantPhone) throws IOException, DocumentException {
-        File directory = new File(context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), "Invoices");
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
-
-        String fileName = "Invoice_" + order.getInvoiceNumber() + ".pdf";
-        File file = new File(directory, fileName);
-
         Document document = new Document(PageSize.A4);
         PdfWriter.getInstance(document, new FileOutputStream(file));
         document.open();
@@ -90,8 +79,8 @@ public class PDFGenerator {
         for (OrderItem item : items) {
             addTableCell(table, item.getItemName());
             addTableCell(table, String.valueOf(item.getQuantity()));
-            addTableCell(table, String.format(Locale.getDefault(), "₹%.2f", item.getPrice()));
-            addTableCell(table, String.format(Locale.getDefault(), "₹%.2f", item.getSubtotal()));
+            addTableCell(table, Money.format(item.getPrice()));
+            addTableCell(table, Money.format(item.getSubtotal()));
         }
 
         document.add(table);
@@ -102,9 +91,9 @@ public class PDFGenerator {
         summaryTable.setWidthPercentage(100);
         summaryTable.setWidths(new float[]{3, 1});
 
-        addSummaryRow(summaryTable, "Subtotal:", String.format(Locale.getDefault(), "₹%.2f", order.getSubtotal()));
-        addSummaryRow(summaryTable, "Tax:", String.format(Locale.getDefault(), "₹%.2f", order.getTax()));
-        addSummaryRow(summaryTable, "Total:", String.format(Locale.getDefault(), "₹%.2f", order.getTotal()));
+        addSummaryRow(summaryTable, "Subtotal:", Money.format(order.getSubtotal()));
+        addSummaryRow(summaryTable, "Tax:", Money.format(order.getTax()));
+        addSummaryRow(summaryTable, "Total:", Money.format(order.getTotal()));
 
         document.add(summaryTable);
 
@@ -0,0 +1,41 @@
+package com.tandoornightcafe.app.util;
+
+import com.itextpdf.text.DocumentException;
+import com.tandoornightcafe.app.db.DocumentStore;
+import com.tandoornightcafe.app.model.AppSettings;
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.OrderItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/** A4 invoice through {@link PDFGenerator}. */
+public class PdfReceiptRenderer implements ReceiptRenderer {
+
+    @Override
+    public String getDocumentKind() {
+        return DocumentStore.KIND_INVOICE;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".pdf";
+    }
+
+    @Override
+    public String getMimeType() {
+        return "application/pdf";
+    }
+
+    @Override
+    public void render(File target, Order order, List<OrderItem> items, AppSettings settings)
+            throws IOException {
+        try {
+            PDFGenerator.generateInvoice(target, order, items, settings.getRestaurantName(),
+                    settings.getRestaurantAddress(), settings.getRestaurantPhone());
+        } catch (DocumentException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.tandoornightcafe.app.util;
+
+import com.tandoornightcafe.app.model.AppSettings;
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.OrderItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/** Turns a committed order into a receipt file; chosen by the receipt_format setting. */
+public interface ReceiptRenderer {
+    /** The {@link com.tandoornightcafe.app.db.DocumentStore} kind the output is filed under. */
+    String getDocumentKind();
+
+    String getFileExtension();
+
+    String getMimeType();
+
+    void render(File target, Order order, List<OrderItem> items, AppSettings settings) throws IOException;
+}
@@ -0,0 +1,301 @@
+package com.tandoornightcafe.app.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reduces menu text and search input to the same loose Latin key, so "paneer", "panir" and
+ * "पनीर" all become "panir". Devanagari is transliterated (dropping the inherent vowel where
+ * Hindi speakers drop it), Latin accents are stripped, and the usual Hinglish spelling
+ * variants are folded: long vowels written doubled, aspirated consonants, w/v, z/j, ph/f
+ * and doubled letters. The same rules run when a menu item is indexed and on every
+ * keystroke, so the two sides always agree. While a word is still being typed some rules
+ * have not seen all of their letters ("pane" before "paneer" becomes "panir"), so the
+ * match queries carry each reading the finished word could fold to.
+ */
+public final class SearchNormalizer {
+    private static final char DEVANAGARI_START = 'ऀ';
+    private static final char DEVANAGARI_END = 'ॿ';
+    private static final char VIRAMA = '्';
+    private static final char CANDRABINDU = 'ँ';
+    private static final char ANUSVARA = 'ं';
+    private static final char VISARGA = 'ः';
+
+    // Indexed by code point - U+0900. Consonants carry no vowel; the inherent "a" is added
+    // during schwa deletion. Nukta letters are handled after NFD splits off the nukta.
+    private static final String[] CONSONANTS = new String[0x80];
+    private static final String[] INDEPENDENT_VOWELS = new String[0x80];
+    private static final String[] VOWEL_SIGNS = new String[0x80];
+
+    static {
+        String[] consonants = {"k", "kh", "g", "gh", "n", "ch", "chh", "j", "jh", "n",
+                "t", "th", "d", "dh", "n", "t", "th", "d", "dh", "n", "n",
+                "p", "ph", "b", "bh", "m", "y", "r", "r", "l", "l", "l", "v", "sh", "sh", "s", "h"};
+        for (int i = 0; i < consonants.length; i++) {
+            CONSONANTS[0x15 + i] = consonants[i];
+        }
+        String[] vowels = {"a", "a", "i", "i", "u", "u", "ri", "l", "e", "e", "e", "ai", "o", "o", "o", "au"};
+        for (int i = 0; i < vowels.length; i++) {
+            INDEPENDENT_VOWELS[0x05 + i] = vowels[i];
+        }
+        String[] signs = {"a", "i", "i", "u", "u", "ri", "ri", "e", "e", "e", "ai", "o", "o", "o", "au"};
+        for (int i = 0; i < signs.length; i++) {
+            VOWEL_SIGNS[0x3E + i] = signs[i];
+        }
+    }
+
+    private SearchNormalizer() {
+    }
+
+    /** The space-separated search key for a piece of text, or "" if it has no letters or digits. */
+    public static String normalize(String text) {
+        return normalize(text, false);
+    }
+
+    // With openEnd, a Devanagari word at the very end may still get its vowel sign.
+    private static String normalize(String text, boolean openEnd) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String latin = transliterate(Normalizer.normalize(text, Normalizer.Form.NFD), openEnd);
+        StringBuilder key = new StringBuilder(latin.length());
+        int start = -1;
+        for (int i = 0; i <= latin.length(); i++) {
+            boolean wordChar = i < latin.length() && isAsciiLetterOrDigit(latin.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (key.length() > 0) {
+                    key.append(' ');
+                }
+                fold(latin, start, i, key);
+                start = -1;
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * FTS MATCH expressions that prefix-match every word of the input, one per reading of a
+     * last word still being typed; a row matching any of them matches. Empty when there is
+     * nothing to search for. Keys contain only letters, digits and spaces, so no escaping is
+     * needed.
+     */
+    public static List<String> toMatchQueries(String input) {
+        List<String> queries = new ArrayList<>(2);
+        String key = normalize(input);
+        if (key.isEmpty()) {
+            return queries;
+        }
+        queries.add(toPrefixQuery(key));
+        char last = Character.toLowerCase(input.charAt(input.length() - 1));
+        if (Character.isWhitespace(last)) {
+            return queries;
+        }
+        addReading(queries, normalize(input, true));
+        // The letter that would complete a pair folding differently: ee, oo, ph and ch.
+        String completion = last == 'e' ? "e" : last == 'o' ? "o" : last == 'p' || last == 'c' ? "h" : null;
+        if (completion != null) {
+            addReading(queries, normalize(input + completion));
+        }
+        return queries;
+    }
+
+    private static void addReading(List<String> queries, String key) {
+        String query = toPrefixQuery(key);
+        if (!key.isEmpty() && !queries.contains(query)) {
+            queries.add(query);
+        }
+    }
+
+    private static String toPrefixQuery(String key) {
+        return key.replace(" ", "* ") + "*";
+    }
+
+    private static String transliterate(String text, boolean openEnd) {
+        StringBuilder out = new StringBuilder(text.length() + 8);
+        Word word = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= DEVANAGARI_START && c <= DEVANAGARI_END) {
+                if (word == null) {
+                    word = new Word();
+                }
+                word.add(c);
+                continue;
+            }
+            if (word != null) {
+                word.appendTo(out, false);
+                word = null;
+            }
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            out.append(Character.toLowerCase(c));
+        }
+        if (word != null) {
+            word.appendTo(out, openEnd);
+        }
+        return out.toString();
+    }
+
+    private static void fold(String word, int start, int end, StringBuilder out) {
+        int wordStart = out.length();
+        for (int i = start; i < end; i++) {
+            char c = word.charAt(i);
+            char next = i + 1 < end ? word.charAt(i + 1) : 0;
+            String folded;
+            switch (c) {
+                case 'w':
+                    folded = "v";
+                    break;
+                case 'z':
+                    folded = "j";
+                    break;
+                case 'q':
+                    folded = "k";
+                    break;
+                case 'x':
+                    folded = "ks";
+                    break;
+                case 'c':
+                    folded = next == 'h' ? "c" : "k";
+                    break;
+                case 'p':
+                    if (next == 'h') {
+                        i++;
+                        folded = "f";
+                    } else {
+                        folded = "p";
+                    }
+                    break;
+                case 'e':
+                    if (next == 'e') {
+                        i++;
+                        folded = "i";
+                    } else {
+                        folded = "e";
+                    }
+                    break;
+                case 'o':
+                    if (next == 'o') {
+                        i++;
+                        folded = "u";
+                    } else {
+                        folded = "o";
+                    }
+                    break;
+                case 'h':
+                    // Aspiration: kh, gh, chh, th, dh, bh, sh all fold onto the plain consonant.
+                    folded = out.length() > wordStart && isConsonant(out.charAt(out.length() - 1)) ? "" : "h";
+                    break;
+                case 'y':
+                    // "chay" and "chai" are the same word; a y between vowels stays a y.
+                    folded = out.length() > wordStart && isVowel(out.charAt(out.length() - 1))
+                            && !isVowel(next) ? "i" : "y";
+                    break;
+                default:
+                    folded = String.valueOf(c);
+                    break;
+            }
+            for (int j = 0; j < folded.length(); j++) {
+                char f = folded.charAt(j);
+                if (out.length() > wordStart && out.charAt(out.length() - 1) == f
+                        && !Character.isDigit(f)) {
+                    continue;
+                }
+                out.append(f);
+            }
+        }
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+
+    private static boolean isConsonant(char c) {
+        return c >= 'a' && c <= 'z' && !isVowel(c) && c != 'h';
+    }
+
+    /**
+     * One Devanagari word as consonant + vowel syllables. The inherent "a" after a bare
+     * consonant is dropped at the end of the word and between two pronounced vowels (VC_CV),
+     * which is how Hindi is spoken and so how it gets spelled in Latin letters. An open
+     * word is one still being typed: its last consonant is written bare and, since a vowel
+     * sign may follow, counts as voiced for the syllable before it.
+     */
+    private static final class Word {
+        private final List<Syllable> syllables = new ArrayList<>();
+
+        void add(char c) {
+            int index = c - DEVANAGARI_START;
+            Syllable last = syllables.isEmpty() ? null : syllables.get(syllables.size() - 1);
+            if (CONSONANTS[index] != null) {
+                syllables.add(new Syllable(CONSONANTS[index], null));
+            } else if (INDEPENDENT_VOWELS[index] != null) {
+                syllables.add(new Syllable("", INDEPENDENT_VOWELS[index]));
+            } else if (c >= '०' && c <= '९') {
+                Syllable digit = new Syllable(String.valueOf((char) ('0' + c - '०')), "");
+                syllables.add(digit);
+            } else if (last == null) {
+                return;
+            } else if (VOWEL_SIGNS[index] != null) {
+                last.vowel = VOWEL_SIGNS[index];
+            } else if (c == VIRAMA) {
+                last.vowel = "";
+            } else if (c == ANUSVARA || c == CANDRABINDU || c == VISARGA) {
+                if (last.vowel == null) {
+                    last.vowel = "a";
+                }
+                last.coda = c == VISARGA ? "h" : "n";
+            }
+            // Nukta, danda and the remaining signs carry nothing the key needs.
+        }
+
+        void appendTo(StringBuilder out, boolean open) {
+            int size = syllables.size();
+            Syllable last = size > 0 ? syllables.get(size - 1) : null;
+            boolean bareEnd = last != null && last.vowel == null;
+            if (bareEnd && !open) {
+                last.vowel = "";
+            }
+            for (int i = 1; i < size - 1; i++) {
+                Syllable syllable = syllables.get(i);
+                Syllable next = syllables.get(i + 1);
+                if (syllable.vowel == null && syllables.get(i - 1).isVoiced()
+                        && !next.consonant.isEmpty() && next.isVoiced()) {
+                    syllable.vowel = "";
+                }
+            }
+            if (bareEnd) {
+                last.vowel = "";
+            }
+            for (Syllable syllable : syllables) {
+                out.append(syllable.consonant)
+                        .append(syllable.vowel == null ? "a" : syllable.vowel)
+                        .append(syllable.coda);
+            }
+        }
+    }
+
+    private static final class Syllable {
+        final String consonant;
+        // null while the inherent "a" is still undecided, "" when silent.
+        String vowel;
+        String coda = "";
+
+        Syllable(String consonant, String vowel) {
+            this.consonant = consonant;
+            this.vowel = vowel;
+        }
+
+        boolean isVoiced() {
+            return vowel == null || !vowel.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.tandoornightcafe.app.db;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+
+public class MigrationsTest {
+    @Test
+    public void legacyDatesWithLocaleDigitsAreRead() {
+        long expected = localMillis(2024, Calendar.MARCH, 9, 21, 7, 45);
+        assertEquals(expected, Migrations.parseLegacyOrderDate("2024-03-09 21:07:45", "INV202403090001"));
+        // Devanagari digits, as written under Hindi and Marathi locales.
+        assertEquals(expected, Migrations.parseLegacyOrderDate("२०२४-०३-०९ २१:०७:४५", "INV२०२४०३०९००१"));
+        // Bengali digits.
+        assertEquals(expected, Migrations.parseLegacyOrderDate("২০২৪-০৩-০৯ ২১:০৭:৪৫", null));
+    }
+
+    @Test
+    public void unreadableDateFallsBackToTheInvoiceDay() {
+        assertEquals(localMillis(2024, Calendar.MARCH, 9, 0, 0, 0),
+                Migrations.parseLegacyOrderDate("Sat Mar 09", "INV२०२४०३०९००१"));
+        assertEquals(localMillis(2024, Calendar.MARCH, 9, 0, 0, 0),
+                Migrations.parseLegacyOrderDate(null, "INV202403090001"));
+    }
+
+    @Test
+    public void unreadableRowsGetTheSentinel() {
+        assertEquals(Migrations.UNKNOWN_ORDER_DATE, Migrations.parseLegacyOrderDate("", "A-17"));
+        assertEquals(Migrations.UNKNOWN_ORDER_DATE, Migrations.parseLegacyOrderDate("2024-13-40 25:00:00", null));
+        assertEquals(Migrations.UNKNOWN_ORDER_DATE, Migrations.parseLegacyOrderDate(null, "INV20241340001"));
+    }
+
+    private static long localMillis(int year, int month, int day, int hour, int minute, int second) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute, second);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,24 @@
+package com.tandoornightcafe.app.db;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OrderSearchIndexTest {
+    @Test
+    public void phoneDigitsDropEverythingButDigits() {
+        assertEquals("919876543210", OrderSearchIndex.phoneDigits("+91 98765-43210"));
+        assertEquals("9876543210", OrderSearchIndex.phoneDigits("98765 43210"));
+        assertEquals("9876543210", OrderSearchIndex.phoneDigits("(98765) 43210"));
+        // Devanagari digits from a Hindi keyboard.
+        assertEquals("98765", OrderSearchIndex.phoneDigits("९८७६५"));
+    }
+
+    @Test
+    public void phoneWithoutDigitsHasNone() {
+        assertNull(OrderSearchIndex.phoneDigits(null));
+        assertNull(OrderSearchIndex.phoneDigits(""));
+        assertNull(OrderSearchIndex.phoneDigits("+ -"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.tandoornightcafe.app.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CartTest {
+    // 5% GST, in basis points.
+    private static final int TAX = 500;
+
+    private final MenuItem naan = new MenuItem(1, "Butter Naan", "", 1, 6000);
+    private final MenuItem dal = new MenuItem(2, "Dal Makhani", "", 1, 24000);
+    private final MenuItem lassi = new MenuItem(3, "Sweet Lassi", "", 2, 9000);
+
+    private Cart cart;
+
+    @Before
+    public void setUp() {
+        cart = new Cart(TAX);
+    }
+
+    @Test
+    public void addingAgainIncrementsTheExistingLine() {
+        cart.add(naan);
+        cart.add(dal);
+        cart.add(naan);
+
+        List<CartItem> items = cart.getItems();
+        assertEquals(2, items.size());
+        assertSame(naan, items.get(0).getMenuItem());
+        assertEquals(2, items.get(0).getQuantity());
+        assertSame(dal, items.get(1).getMenuItem());
+        assertEquals(1, items.get(1).getQuantity());
+    }
+
+    @Test
+    public void totalsFollowEveryChange() {
+        cart.add(naan);
+        cart.add(naan);
+        cart.add(dal);
+        assertTotals(36000, 1800);
+
+        cart.setQuantity(dal.getId(), 3);
+        assertTotals(84000, 4200);
+
+        cart.remove(naan.getId());
+        assertTotals(72000, 3600);
+
+        cart.remove(dal.getId());
+        assertTrue(cart.isEmpty());
+        assertTotals(0, 0);
+    }
+
+    @Test
+    public void taxRoundsHalfUpToThePaisa() {
+        cart.add(new MenuItem(4, "Masala Papad", "", 3, 1010));
+        // 5% of ₹10.10 is 50.5 paise.
+        assertTotals(1010, 51);
+    }
+
+    @Test
+    public void changingTheTaxRateRecomputesTax() {
+        cart.add(dal);
+        cart.setTaxBasisPoints(1800);
+        assertTotals(24000, 4320);
+    }
+
+    @Test
+    public void changeQuantityAppliesDeltaToCurrentQuantity() {
+        cart.add(lassi);
+        cart.changeQuantity(lassi.getId(), 1);
+        cart.changeQuantity(lassi.getId(), 1);
+        assertEquals(3, cart.getItems().get(0).getQuantity());
+        assertTotals(27000, 1350);
+
+        cart.changeQuantity(lassi.getId(), -1);
+        assertEquals(2, cart.getItems().get(0).getQuantity());
+    }
+
+    @Test
+    public void changeQuantityNeverGoesBelowOne() {
+        cart.add(lassi);
+        cart.changeQuantity(lassi.getId(), -1);
+        assertEquals(1, cart.getItems().get(0).getQuantity());
+        assertTotals(9000, 450);
+    }
+
+    @Test
+    public void unknownItemsAreIgnored() {
+        cart.add(naan);
+        cart.setQuantity(dal.getId(), 4);
+        cart.changeQuantity(dal.getId(), 1);
+        cart.remove(dal.getId());
+        assertEquals(1, cart.size());
+        assertTotals(6000, 300);
+    }
+
+    @Test
+    public void quantityChangeKeepsLinePosition() {
+        cart.add(naan);
+        cart.add(dal);
+        cart.add(lassi);
+        cart.changeQuantity(naan.getId(), 1);
+
+        List<CartItem> items = cart.getItems();
+        assertSame(naan, items.get(0).getMenuItem());
+        assertSame(dal, items.get(1).getMenuItem());
+        assertSame(lassi, items.get(2).getMenuItem());
+    }
+
+    @Test
+    public void itemsListIsReplacedOnlyOnChange() {
+        cart.add(naan);
+        List<CartItem> before = cart.getItems();
+        assertSame(before, cart.getItems());
+
+        cart.setQuantity(naan.getId(), 1);
+        assertSame(before, cart.getItems());
+
+        cart.add(naan);
+        List<CartItem> after = cart.getItems();
+        assertTrue(before != after);
+        assertEquals(1, before.get(0).getQuantity());
+        assertEquals(2, after.get(0).getQuantity());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void itemsListIsImmutable() {
+        cart.add(naan);
+        cart.getItems().clear();
+    }
+
+    private void assertTotals(long subtotal, long tax) {
+        assertEquals(subtotal, cart.getSubtotal());
+        assertEquals(tax, cart.getTax());
+        assertEquals(subtotal + tax, cart.getTotal());
+    }
+}
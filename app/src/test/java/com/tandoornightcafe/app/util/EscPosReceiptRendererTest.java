@@ -0,0 +1,175 @@
+package com.tandoornightcafe.app.util;
+
+import com.tandoornightcafe.app.model.AppSettings;
+import com.tandoornightcafe.app.model.Order;
+import com.tandoornightcafe.app.model.OrderItem;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Compares whole receipts byte for byte with the stream a printer should receive, at both
+ * paper widths. The order has an item name longer than either width and a Hindi item name,
+ * which the printer font cannot show.
+ */
+public class EscPosReceiptRendererTest {
+    private static final int ESC = 0x1B;
+    private static final int GS = 0x1D;
+
+    @Test
+    public void renders58mmReceipt() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        header(expected);
+        rule(expected, EscPosReceiptRenderer.COLUMNS_58MM);
+        line(expected, "Invoice: INV20240105007");
+        line(expected, "Date: 05/01/2024 21:07");
+        line(expected, "Customer: Asha");
+        rule(expected, EscPosReceiptRenderer.COLUMNS_58MM);
+        line(expected, "Item                      Amount");
+        rule(expected, EscPosReceiptRenderer.COLUMNS_58MM);
+        line(expected, "Paneer Butter Masala with Garlic");
+        line(expected, "Naan and Jeera Rice");
+        line(expected, "  2 x 320.00              640.00");
+        line(expected, "???? ??????");
+        line(expected, "  1 x 220.00              220.00");
+        rule(expected, EscPosReceiptRenderer.COLUMNS_58MM);
+        line(expected, "Subtotal              Rs. 860.00");
+        line(expected, "Tax                    Rs. 43.00");
+        bytes(expected, ESC, 'E', 1);
+        line(expected, "TOTAL                 Rs. 903.00");
+        bytes(expected, ESC, 'E', 0);
+        line(expected, "Paid by: UPI");
+        rule(expected, EscPosReceiptRenderer.COLUMNS_58MM);
+        footer(expected);
+
+        assertArrayEquals(expected.toByteArray(), render(EscPosReceiptRenderer.COLUMNS_58MM));
+    }
+
+    @Test
+    public void renders80mmReceipt() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        header(expected);
+        rule(expected, EscPosReceiptRenderer.COLUMNS_80MM);
+        line(expected, "Invoice: INV20240105007");
+        line(expected, "Date: 05/01/2024 21:07");
+        line(expected, "Customer: Asha");
+        rule(expected, EscPosReceiptRenderer.COLUMNS_80MM);
+        line(expected, "Item                                      Amount");
+        rule(expected, EscPosReceiptRenderer.COLUMNS_80MM);
+        line(expected, "Paneer Butter Masala with Garlic Naan and Jeera");
+        line(expected, "Rice");
+        line(expected, "  2 x 320.00                              640.00");
+        line(expected, "???? ??????");
+        line(expected, "  1 x 220.00                              220.00");
+        rule(expected, EscPosReceiptRenderer.COLUMNS_80MM);
+        line(expected, "Subtotal                              Rs. 860.00");
+        line(expected, "Tax                                    Rs. 43.00");
+        bytes(expected, ESC, 'E', 1);
+        line(expected, "TOTAL                                 Rs. 903.00");
+        bytes(expected, ESC, 'E', 0);
+        line(expected, "Paid by: UPI");
+        rule(expected, EscPosReceiptRenderer.COLUMNS_80MM);
+        footer(expected);
+
+        assertArrayEquals(expected.toByteArray(), render(EscPosReceiptRenderer.COLUMNS_80MM));
+    }
+
+    @Test
+    public void reusedRendererWritesTheSameBytes() throws IOException {
+        EscPosReceiptRenderer renderer = new EscPosReceiptRenderer(EscPosReceiptRenderer.COLUMNS_58MM);
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        renderer.write(first, order(), items(), settings());
+        renderer.write(second, order(), items(), settings());
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+    }
+
+    private static byte[] render(int columns) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new EscPosReceiptRenderer(columns).write(out, order(), items(), settings());
+        return out.toByteArray();
+    }
+
+    private static AppSettings settings() {
+        Map<String, String> values = new HashMap<>();
+        values.put(AppSettings.KEY_RESTAURANT_NAME, "Tandoor Night Cafe");
+        values.put(AppSettings.KEY_RESTAURANT_ADDRESS, "12 MG Road\nPune");
+        values.put(AppSettings.KEY_RESTAURANT_PHONE, "9876543210");
+        return AppSettings.from(values);
+    }
+
+    private static Order order() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2024, Calendar.JANUARY, 5, 21, 7);
+        Order order = new Order();
+        order.setInvoiceNumber("INV20240105007");
+        order.setOrderDate(calendar.getTimeInMillis());
+        order.setCustomerName("Asha");
+        order.setCustomerPhone("");
+        order.setSubtotal(86000);
+        order.setTax(4300);
+        order.setTotal(90300);
+        order.setPaymentMethod("UPI");
+        return order;
+    }
+
+    private static List<OrderItem> items() {
+        List<OrderItem> items = new ArrayList<>(2);
+        items.add(new OrderItem(1, 7, 3, "Paneer Butter Masala with Garlic Naan and Jeera Rice",
+                2, 32000, 64000));
+        items.add(new OrderItem(2, 7, 5, "पनीर टिक्का", 1, 22000, 22000));
+        return items;
+    }
+
+    private static void header(ByteArrayOutputStream out) {
+        bytes(out, ESC, '@');
+        bytes(out, ESC, 'a', 1);
+        bytes(out, ESC, 'E', 1);
+        bytes(out, GS, '!', 0x01);
+        line(out, "Tandoor Night Cafe");
+        bytes(out, GS, '!', 0x00);
+        bytes(out, ESC, 'E', 0);
+        line(out, "12 MG Road");
+        line(out, "Pune");
+        line(out, "Ph: 9876543210");
+        bytes(out, ESC, 'a', 0);
+    }
+
+    private static void footer(ByteArrayOutputStream out) {
+        bytes(out, ESC, 'a', 1);
+        line(out, "Thank you! Visit again");
+        bytes(out, ESC, 'd', 4);
+        bytes(out, GS, 'V', 66, 0);
+    }
+
+    private static void rule(ByteArrayOutputStream out, int columns) {
+        StringBuilder rule = new StringBuilder(columns);
+        for (int i = 0; i < columns; i++) {
+            rule.append('-');
+        }
+        line(out, rule.toString());
+    }
+
+    private static void line(ByteArrayOutputStream out, String text) {
+        byte[] ascii = text.getBytes(StandardCharsets.US_ASCII);
+        out.write(ascii, 0, ascii.length);
+        out.write(0x0A);
+    }
+
+    private static void bytes(ByteArrayOutputStream out, int... bytes) {
+        for (int b : bytes) {
+            out.write(b);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.tandoornightcafe.app.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchNormalizerTest {
+    @Test
+    public void hinglishSpellingsAndDevanagariShareAKey() {
+        assertKey("panir", "paneer", "Panir", "PANEER", "पनीर");
+        assertKey("panir tika", "Paneer Tikka", "panir tika", "पनीर टिक्का");
+        assertKey("cai", "Chai", "chay", "चाय");
+        assertKey("firni", "Phirni", "firni", "फिरनी");
+        assertKey("batura", "Bhatura", "भटूरा");
+        assertKey("gulab jamun", "Gulab Jamun", "gulaab jaamun", "gulab zamun", "गुलाब जामुन");
+    }
+
+    @Test
+    public void inherentVowelIsDroppedWhereHindiDropsIt() {
+        // Between two voiced syllables and at the end of the word.
+        assertKey("makni", "makhni", "मखनी");
+        assertKey("dal", "daal", "दाल");
+    }
+
+    @Test
+    public void latinAccentsAreStripped() {
+        assertKey("kreme bruli", "Crème Brûlée", "creme brulee");
+    }
+
+    @Test
+    public void punctuationSeparatesWordsAndDigitsAreKept() {
+        assertEquals("masala papad 2 pks", SearchNormalizer.normalize("Masala Papad (2 pcs)"));
+        // Repeated digits are not folded like repeated letters.
+        assertEquals("vater 1100ml", SearchNormalizer.normalize("Water 1100ml"));
+        assertEquals("7 up", SearchNormalizer.normalize("7-Up"));
+        assertEquals("2", SearchNormalizer.normalize("२"));
+    }
+
+    @Test
+    public void emptyInputHasNoKey() {
+        assertEquals("", SearchNormalizer.normalize(null));
+        assertEquals("", SearchNormalizer.normalize(""));
+        assertEquals("", SearchNormalizer.normalize(" - / "));
+    }
+
+    @Test
+    public void matchQueryPrefixMatchesEveryWord() {
+        assertQueries("Paneer Tikka", "panir* tika*");
+        assertQueries("पन", "pan*");
+        assertQueries("panir ", "panir*");
+        assertTrue(SearchNormalizer.toMatchQueries("  ").isEmpty());
+        assertTrue(SearchNormalizer.toMatchQueries("\"*)").isEmpty());
+    }
+
+    @Test
+    public void unfinishedLastWordAlsoMatchesWhatItCouldBecome() {
+        // On the way to "paneer", which is indexed as "panir".
+        assertQueries("pane", "pane*", "pani*");
+        assertQueries("pa", "pa*");
+        assertQueries("p", "p*", "f*");
+        assertQueries("c", "k*", "c*");
+        assertQueries("gulab jamo", "gulab* jamo*", "gulab* jamu*");
+        // On the way to "मखनी" (makni); "मखन" alone is "makhan".
+        assertQueries("मखन", "makan*", "makn*");
+        // Only the last word is still being typed.
+        assertQueries("pane tika", "pane* tika*");
+    }
+
+    private static void assertQueries(String input, String... queries) {
+        assertEquals(input, Arrays.asList(queries), SearchNormalizer.toMatchQueries(input));
+    }
+
+    private static void assertKey(String key, String... spellings) {
+        for (String spelling : spellings) {
+            assertEquals(spelling, key, SearchNormalizer.normalize(spelling));
+        }
+    }
+}